@@ -0,0 +1,186 @@
+package flowingfluidsfixes.jmh;
+
+import flowingfluidsfixes.ChunkCellCache;
+import flowingfluidsfixes.ChunkRefCountSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BiomeOptimization.getProfile - registry key lookup per call vs holder cache vs
+ * per-chunk quart cell cache
+ *
+ * The quart cell benchmark runs the shipped ChunkCellCache, the lookup BiomeOptimization
+ * does on the server thread. Biomes, holders and the profile maps are stand-ins: the
+ * level keeps one biome per quart cell, and its getBiome evaluates the eight
+ * surrounding cells with a seeded hash, roughly the work BiomeManager's zoom does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiomeProfileBenchmark {
+    private static final int QUERY_COUNT = 4096;
+    private static final int AREA_CHUNKS = 16; // 16x16 chunks of queries
+    private static final int MIN_Y = -64;
+    private static final int HEIGHT = 384;
+
+    private StandInLevel level;
+    private final Map<BiomeStub, String> registryKeys = new HashMap<>();
+    private final Map<String, Profile> profilesByKey = new HashMap<>();
+    private final Map<BiomeStub, Profile> holderProfiles = new ConcurrentHashMap<>();
+    private final ChunkCellCache chunkProfiles = new ChunkCellCache(MIN_Y >> 2, HEIGHT >> 2);
+    private final Profile defaultProfile = new Profile("default");
+    private int[] queryX;
+    private int[] queryY;
+    private int[] queryZ;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        BiomeStub[] biomes = new BiomeStub[8];
+        for (int i = 0; i < biomes.length; i++) {
+            biomes[i] = new BiomeStub(i);
+            registryKeys.put(biomes[i], "minecraft:biome_" + i);
+            profilesByKey.put("minecraft:biome_" + i, new Profile("biome_" + i));
+        }
+        level = new StandInLevel(biomes, 42L);
+
+        queryX = new int[QUERY_COUNT];
+        queryY = new int[QUERY_COUNT];
+        queryZ = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queryX[i] = random.nextInt(AREA_CHUNKS * 16);
+            queryY[i] = 40 + random.nextInt(40);
+            queryZ[i] = random.nextInt(AREA_CHUNKS * 16);
+        }
+    }
+
+    @Benchmark
+    public Profile registryLookup() {
+        int i = next();
+        BiomeStub biome = level.getBiome(queryX[i], queryY[i], queryZ[i]);
+        String key = Optional.ofNullable(registryKeys.get(biome)).orElse("minecraft:plains");
+        return profilesByKey.getOrDefault(key, defaultProfile);
+    }
+
+    @Benchmark
+    public Profile holderCache() {
+        int i = next();
+        return holderProfile(level.getBiome(queryX[i], queryY[i], queryZ[i]));
+    }
+
+    @Benchmark
+    public Profile quartCellCache() {
+        int i = next();
+        int x = queryX[i];
+        int y = queryY[i];
+        int z = queryZ[i];
+        long chunkKey = ChunkRefCountSet.pack(x >> 4, z >> 4);
+        Object[] cells = chunkProfiles.get(chunkKey);
+        if (cells == null) {
+            cells = chunkProfiles.create(chunkKey); // Every stand-in chunk counts as loaded
+        }
+        int index = chunkProfiles.cellIndex(x >> 2, y >> 2, z >> 2);
+        Profile profile = (Profile) cells[index];
+        if (profile == null) {
+            profile = holderProfile(level.getNoiseBiome(x >> 2, y >> 2, z >> 2));
+            cells[index] = profile;
+        }
+        return profile;
+    }
+
+    private Profile holderProfile(BiomeStub biome) {
+        Profile profile = holderProfiles.get(biome);
+        if (profile == null) {
+            profile = profilesByKey.getOrDefault(registryKeys.get(biome), defaultProfile);
+            holderProfiles.put(biome, profile);
+        }
+        return profile;
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) & (QUERY_COUNT - 1);
+        return i;
+    }
+
+    /**
+     * Stand-in for a Holder&lt;Biome&gt; - identity hashed, like registry holders
+     */
+    private static final class BiomeStub {
+        final int id;
+
+        BiomeStub(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Stand-in for BiomeOptimization.BiomeProfile
+     */
+    public static final class Profile {
+        final String name;
+
+        Profile(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Stand-in for a ServerLevel's biome access
+     */
+    private static final class StandInLevel {
+        private final BiomeStub[] biomes;
+        private final long seed;
+
+        StandInLevel(BiomeStub[] biomes, long seed) {
+            this.biomes = biomes;
+            this.seed = seed;
+        }
+
+        BiomeStub getNoiseBiome(int quartX, int quartY, int quartZ) {
+            // Large patches so neighbouring cells mostly agree, as real biomes do
+            long h = mix(seed ^ ((quartX >> 4) * 341873128712L) ^ ((quartZ >> 4) * 132897987541L));
+            return biomes[(int) ((h >>> 33) % biomes.length)];
+        }
+
+        // Eight-corner fuzzed pick, approximating BiomeManager.getBiome
+        BiomeStub getBiome(int x, int y, int z) {
+            int baseX = (x - 2) >> 2;
+            int baseY = (y - 2) >> 2;
+            int baseZ = (z - 2) >> 2;
+            int best = 0;
+            long bestDistance = Long.MAX_VALUE;
+            for (int corner = 0; corner < 8; corner++) {
+                int cx = baseX + ((corner & 4) == 0 ? 0 : 1);
+                int cy = baseY + ((corner & 2) == 0 ? 0 : 1);
+                int cz = baseZ + ((corner & 1) == 0 ? 0 : 1);
+                long distance = mix(seed + cx * 31L + cy * 17L + cz * 7L) & 0xFFFF;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = corner;
+                }
+            }
+            return getNoiseBiome(baseX + ((best & 4) == 0 ? 0 : 1), baseY + ((best & 2) == 0 ? 0 : 1),
+                                 baseZ + ((best & 1) == 0 ? 0 : 1));
+        }
+
+        private static long mix(long value) {
+            value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+            value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return value ^ (value >>> 33);
+        }
+    }
+}
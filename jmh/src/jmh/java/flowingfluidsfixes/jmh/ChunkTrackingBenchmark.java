@@ -0,0 +1,112 @@
+package flowingfluidsfixes.jmh;
+
+import flowingfluidsfixes.ChunkRefCountSet;
+import flowingfluidsfixes.LongRingBuffer;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * addToChunkTracking - String-keyed ArrayList history vs primitive per-chunk ring buffers
+ *
+ * Both keep the last 100 positions per chunk, as ChunkFluidHistory does. The event
+ * stream stays inside a small set of chunks so every history fills up and evicts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkTrackingBenchmark {
+    private static final int HISTORY_PER_CHUNK = 100;
+    private static final int EVENT_COUNT = 8192;
+
+    @Param({"16", "256"})
+    public int chunks;
+
+    private final Map<String, List<EventPos>> stringHistory = new ConcurrentHashMap<>();
+    private final Long2ObjectOpenHashMap<LongRingBuffer> ringHistory = new Long2ObjectOpenHashMap<>();
+    private EventPos[] events;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        int side = (int) Math.ceil(Math.sqrt(chunks));
+        events = new EventPos[EVENT_COUNT];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            int chunk = random.nextInt(chunks);
+            int x = (chunk % side) * 16 + random.nextInt(16);
+            int z = (chunk / side) * 16 + random.nextInt(16);
+            events[i] = new EventPos(x, 40 + random.nextInt(30), z);
+        }
+    }
+
+    @Benchmark
+    public int stringArrayList() {
+        EventPos pos = next();
+        String chunkKey = (pos.x >> 4) + "," + (pos.z >> 4);
+        stringHistory.computeIfAbsent(chunkKey, k -> new ArrayList<>()).add(pos.immutable());
+        List<EventPos> fluids = stringHistory.get(chunkKey);
+        if (fluids.size() > HISTORY_PER_CHUNK) {
+            fluids.remove(0);
+        }
+        return fluids.size();
+    }
+
+    @Benchmark
+    public int primitiveRingBuffer() {
+        EventPos pos = next();
+        long chunkKey = ChunkRefCountSet.pack(pos.x >> 4, pos.z >> 4);
+        synchronized (ringHistory) {
+            LongRingBuffer fluids = ringHistory.get(chunkKey);
+            if (fluids == null) {
+                fluids = new LongRingBuffer(HISTORY_PER_CHUNK);
+                ringHistory.put(chunkKey, fluids);
+            }
+            fluids.add(pos.asLong());
+            return fluids.size();
+        }
+    }
+
+    private EventPos next() {
+        EventPos pos = events[cursor];
+        cursor = (cursor + 1) & (EVENT_COUNT - 1);
+        return pos;
+    }
+
+    /**
+     * Stand-in for the event's net.minecraft.core.BlockPos
+     */
+    private static final class EventPos {
+        final int x;
+        final int y;
+        final int z;
+
+        EventPos(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        // BlockPos.immutable() copies a mutable position, which is what events carry
+        EventPos immutable() {
+            return new EventPos(x, y, z);
+        }
+
+        long asLong() {
+            return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package flowingfluidsfixes.jmh;
+
+import flowingfluidsfixes.ObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ObjectPool.acquire/release - pooled scratch positions vs plain allocation,
+ * uncontended and with several threads sharing one pool
+ *
+ * Run with -prof gc to see what the pool actually saves in allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObjectPoolBenchmark {
+    private ObjectPool<ScratchPos> pool;
+
+    @Setup
+    public void setup() {
+        pool = new ObjectPool<>(ScratchPos::new, ScratchPos::reset, pos -> { });
+        for (int i = 0; i < 64; i++) {
+            pool.release(new ScratchPos());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long pooledUncontended() {
+        return usePooled();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long pooledContended() {
+        return usePooled();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long allocateContended() {
+        ScratchPos pos = new ScratchPos();
+        pos.set(1, 64, -1);
+        return pos.asLong();
+    }
+
+    private long usePooled() {
+        ScratchPos pos = pool.acquire();
+        pos.set(1, 64, -1);
+        long packed = pos.asLong();
+        pool.release(pos);
+        return packed;
+    }
+
+    /**
+     * Stand-in for net.minecraft.core.BlockPos.MutableBlockPos
+     */
+    private static final class ScratchPos {
+        int x;
+        int y;
+        int z;
+
+        void set(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        void reset() {
+            set(0, 0, 0);
+        }
+
+        // Same bit layout as BlockPos.asLong
+        long asLong() {
+            return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+        }
+    }
+}
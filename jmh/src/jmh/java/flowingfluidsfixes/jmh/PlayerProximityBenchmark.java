@@ -0,0 +1,115 @@
+package flowingfluidsfixes.jmh;
+
+import flowingfluidsfixes.ChunkRefCountSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * isPlayerInNearbyChunk - String-keyed chunk scan vs precomputed primitive chunk set
+ *
+ * Run with -prof gc to compare allocation rates as well as throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlayerProximityBenchmark {
+    private static final int MAX_FLUID_DISTANCE = 3;
+    private static final int QUERY_COUNT = 4096;
+
+    @Param({"1", "20", "100"})
+    public int players;
+
+    // Fraction of queries that land near a player
+    @Param({"0.5"})
+    public double nearRatio;
+
+    private final Map<String, List<Object>> playerChunks = new ConcurrentHashMap<>();
+    private ChunkRefCountSet activeChunks;
+    private int[] queryX;
+    private int[] queryZ;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        activeChunks = new ChunkRefCountSet();
+        int[] playerX = new int[players];
+        int[] playerZ = new int[players];
+
+        for (int i = 0; i < players; i++) {
+            playerX[i] = random.nextInt(2000) - 1000;
+            playerZ[i] = random.nextInt(2000) - 1000;
+            playerChunks.computeIfAbsent(playerX[i] + "," + playerZ[i], k -> new ArrayList<>()).add(new Object());
+            activeChunks.incrementRadius(playerX[i], playerZ[i], MAX_FLUID_DISTANCE);
+        }
+
+        // Block coordinates, either close to a random player or somewhere far away
+        queryX = new int[QUERY_COUNT];
+        queryZ = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            if (random.nextDouble() < nearRatio) {
+                int p = random.nextInt(players);
+                queryX[i] = (playerX[p] + random.nextInt(7) - 3) * 16 + random.nextInt(16);
+                queryZ[i] = (playerZ[p] + random.nextInt(7) - 3) * 16 + random.nextInt(16);
+            } else {
+                queryX[i] = (random.nextInt(2000) + 5000) * 16;
+                queryZ[i] = (random.nextInt(2000) + 5000) * 16;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean stringChunkScan() {
+        int i = next();
+        ChunkCoord fluidChunk = new ChunkCoord(queryX[i] >> 4, queryZ[i] >> 4);
+        for (int dx = -MAX_FLUID_DISTANCE; dx <= MAX_FLUID_DISTANCE; dx++) {
+            for (int dz = -MAX_FLUID_DISTANCE; dz <= MAX_FLUID_DISTANCE; dz++) {
+                ChunkCoord checkChunk = new ChunkCoord(fluidChunk.x + dx, fluidChunk.z + dz);
+                String chunkKey = checkChunk.x + "," + checkChunk.z;
+                List<Object> found = playerChunks.get(chunkKey);
+                if (found != null && !found.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean primitiveChunkSet() {
+        int i = next();
+        return activeChunks.contains(ChunkRefCountSet.pack(queryX[i] >> 4, queryZ[i] >> 4));
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) & (QUERY_COUNT - 1);
+        return i;
+    }
+
+    /**
+     * Stand-in for net.minecraft.world.level.ChunkPos
+     */
+    private static final class ChunkCoord {
+        final int x;
+        final int z;
+
+        ChunkCoord(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package flowingfluidsfixes.jmh;
+
+import flowingfluidsfixes.StampedCache;
+import it.unimi.dsi.fastutil.shorts.Short2BooleanMap;
+import it.unimi.dsi.fastutil.shorts.Short2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
+import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ffCacheKey caching - Flowing Fluids' per-search short-keyed maps vs the shipped
+ * StampedCache that SlopeSearchCache is built on
+ *
+ * Each benchmark call is one slope search: a depth-limited walk over the horizontal
+ * directions, reading the state and flow-down flag of every visited position once
+ * per search. Flowing Fluids allocates fresh maps per search; the StampedCache is
+ * reused and invalidated by bumping its generation. The world is a stand-in array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SlopeCacheBenchmark {
+    private static final int WORLD_SIZE = 256;
+    private static final int KEYS = 1 << 16;
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DZ = {-1, 0, 1, 0};
+
+    // Water slope distance is 4 by default, lava in the nether 4, lava elsewhere 2
+    @Param({"2", "4"})
+    public int maxDistance;
+
+    private final Object water = new Object();
+    private final Object stone = new Object();
+    private final Object[] world = new Object[WORLD_SIZE * WORLD_SIZE];
+    private final boolean[] worldFlowDown = new boolean[WORLD_SIZE * WORLD_SIZE];
+    private final StampedCache cache = new StampedCache(KEYS);
+    private int originX;
+    private int originZ;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < world.length; i++) {
+            world[i] = random.nextInt(8) == 0 ? stone : water;
+            worldFlowDown[i] = random.nextInt(64) == 0;
+        }
+    }
+
+    @Benchmark
+    public int ffCacheKeyMaps() {
+        nextOrigin();
+        Short2ObjectMap<Object> states = new Short2ObjectOpenHashMap<>();
+        Short2BooleanMap flowDown = new Short2BooleanOpenHashMap();
+        return searchMaps(states, flowDown, originX, originZ, 0, -1);
+    }
+
+    @Benchmark
+    public int stampedCache() {
+        nextOrigin();
+        cache.nextGeneration();
+        return searchArrays(originX, originZ, 0, -1);
+    }
+
+    private int searchMaps(Short2ObjectMap<Object> states, Short2BooleanMap flowDown, int x, int z, int distance, int from) {
+        int best = 1000;
+        for (int d = 0; d < 4; d++) {
+            if (d == from) {
+                continue;
+            }
+            int nx = x + DX[d];
+            int nz = z + DZ[d];
+            short key = ffCacheKey(nx - originX, nz - originZ);
+            Object state = states.get(key);
+            if (state == null) {
+                state = world[index(nx, nz)];
+                states.put(key, state);
+            }
+            if (state != water) {
+                continue;
+            }
+            boolean down;
+            if (flowDown.containsKey(key)) {
+                down = flowDown.get(key);
+            } else {
+                down = worldFlowDown[index(nx, nz)];
+                flowDown.put(key, down);
+            }
+            if (down) {
+                return distance + 1;
+            }
+            if (distance + 1 < maxDistance) {
+                best = Math.min(best, searchMaps(states, flowDown, nx, nz, distance + 1, (d + 2) & 3));
+            }
+        }
+        return best;
+    }
+
+    private int searchArrays(int x, int z, int distance, int from) {
+        int best = 1000;
+        for (int d = 0; d < 4; d++) {
+            if (d == from) {
+                continue;
+            }
+            int nx = x + DX[d];
+            int nz = z + DZ[d];
+            int key = ffCacheKey(nx - originX, nz - originZ) & 0xFFFF;
+            Object state;
+            if (cache.hasValue(key)) {
+                state = cache.getValue(key);
+            } else {
+                state = world[index(nx, nz)];
+                cache.setValue(key, state);
+            }
+            if (state != water) {
+                continue;
+            }
+            if (!cache.hasFlag(key)) {
+                cache.setFlag(key, worldFlowDown[index(nx, nz)]);
+            }
+            if (cache.getFlag(key)) {
+                return distance + 1;
+            }
+            if (distance + 1 < maxDistance) {
+                best = Math.min(best, searchArrays(nx, nz, distance + 1, (d + 2) & 3));
+            }
+        }
+        return best;
+    }
+
+    // Same packing as Flowing Fluids' ffCacheKey
+    private static short ffCacheKey(int dx, int dz) {
+        return (short) ((((dx + 128) & 255) << 8) | ((dz + 128) & 255));
+    }
+
+    private static int index(int x, int z) {
+        return (x & (WORLD_SIZE - 1)) * WORLD_SIZE + (z & (WORLD_SIZE - 1));
+    }
+
+    private void nextOrigin() {
+        originX = random.nextInt(WORLD_SIZE);
+        originZ = random.nextInt(WORLD_SIZE);
+    }
+}
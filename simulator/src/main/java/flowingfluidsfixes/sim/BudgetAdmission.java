@@ -0,0 +1,47 @@
+package flowingfluidsfixes.sim;
+
+import flowingfluidsfixes.FluidTickBudget;
+
+/**
+ * BUDGET ADMISSION - the mod's FluidTickBudget behind TickAdmission
+ *
+ * Budgets are sized exactly as FlowingFluidsFixes sizes them at the start of a server
+ * tick. Costs come from the simulator's cost model rather than a clock, so a budgeted
+ * run stays deterministic.
+ */
+public class BudgetAdmission implements TickAdmission {
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private final FluidTickBudget budget = new FluidTickBudget();
+    private final long baseBudgetNanos;
+    private final double baseTickMillis;
+
+    /**
+     * @param baseBudgetMillis configured fluid budget per tick (fluidTickBudgetMs)
+     * @param baseTickMillis tick time of everything that isn't fluid work
+     */
+    public BudgetAdmission(double baseBudgetMillis, double baseTickMillis) {
+        this.baseBudgetNanos = (long) (baseBudgetMillis * NANOS_PER_MS);
+        this.baseTickMillis = baseTickMillis;
+    }
+
+    @Override
+    public void startTick(double lastTickMillis) {
+        budget.startTick(FluidTickBudget.sizeBudget(baseBudgetNanos, baseTickMillis + lastTickMillis));
+    }
+
+    @Override
+    public boolean tryAdmit() {
+        return budget.tryAdmit();
+    }
+
+    @Override
+    public void recordCost(long nanos) {
+        budget.recordCost(nanos);
+    }
+
+    @Override
+    public String getStats() {
+        return budget.getStats();
+    }
+}
@@ -0,0 +1,219 @@
+package flowingfluidsfixes.sim;
+
+import flowingfluidsfixes.AdmissionController;
+import flowingfluidsfixes.TickTimeRecorder;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * CONTROLLER HARNESS - closed-loop admission against a simulated tick load
+ *
+ * Each simulated tick costs the base load of everything else plus the fluid demand
+ * times the share of it that was admitted, with a little deterministic noise. Tick
+ * times go through the mod's TickTimeRecorder, and the admission policy decides on
+ * what the recorder publishes, as on a server.
+ *
+ * Load profiles:
+ *   step - fluid demand jumps up, later down, then base load alone exceeds the
+ *          setpoint for a while (saturation and recovery)
+ *   ramp - fluid demand ramps up, holds and ramps down
+ *
+ * After every load change the harness measures settling time, overshoot, and the
+ * rate reversals and swing once settled. A phase passes when the tick time settles
+ * into the band (or the rate pins at a limit when the setpoint can't be reached)
+ * without sustained oscillation.
+ */
+public class ControllerHarness {
+    private static final double NANOS_PER_MS = 1_000_000.0;
+    private static final double NOISE = 0.05; // +-5% tick time noise
+    private static final double SETTLE_BAND = 0.1; // +-10% of the setpoint
+    private static final int MAX_SETTLE_TICKS = 200; // 10 seconds
+    private static final int MAX_REVERSALS = 4; // rate direction changes larger than REVERSAL_STEP once settled
+    private static final double REVERSAL_STEP = 0.02;
+    private static final double MAX_SWING = 0.1; // rate max - min over the settled second half of a phase
+
+    /**
+     * Decides the admitted share of the fluid demand for one tick
+     */
+    public interface Policy {
+        double admittedShare(int tick, TickTimeRecorder tickTimes);
+
+        String name();
+    }
+
+    /**
+     * The mod's AdmissionController on the tick time EWMA
+     */
+    public static Policy controller(double setpointMSPT) {
+        AdmissionController controller = new AdmissionController();
+        return new Policy() {
+            @Override
+            public double admittedShare(int tick, TickTimeRecorder tickTimes) {
+                return tick == 0 ? AdmissionController.MAX_RATE : controller.update(setpointMSPT, tickTimes.getEwmaMillis());
+            }
+
+            @Override
+            public String name() {
+                return "controller";
+            }
+        };
+    }
+
+    /**
+     * The previous throttle: above the threshold every 3rd tick of the 2 second window is denied whole
+     */
+    public static Policy modulo(double thresholdMSPT) {
+        return new Policy() {
+            @Override
+            public double admittedShare(int tick, TickTimeRecorder tickTimes) {
+                double tail = Math.max(tickTimes.getEwmaMillis(), tickTimes.getP95Millis());
+                return tail > thresholdMSPT && (tick % 40) % 3 == 0 ? 0.0 : 1.0;
+            }
+
+            @Override
+            public String name() {
+                return "modulo";
+            }
+        };
+    }
+
+    /**
+     * One stretch of constant or linearly changing load
+     */
+    private static final class Phase {
+        final String name;
+        final int ticks;
+        final double baseFrom;
+        final double baseTo;
+        final double demandFrom;
+        final double demandTo;
+
+        Phase(String name, int ticks, double baseFrom, double baseTo, double demandFrom, double demandTo) {
+            this.name = name;
+            this.ticks = ticks;
+            this.baseFrom = baseFrom;
+            this.baseTo = baseTo;
+            this.demandFrom = demandFrom;
+            this.demandTo = demandTo;
+        }
+    }
+
+    private final Phase[] phases;
+    private final double setpoint;
+    private final Random random;
+
+    private ControllerHarness(double setpoint, long seed, Phase... phases) {
+        this.setpoint = setpoint;
+        this.random = new Random(seed);
+        this.phases = phases;
+    }
+
+    public static ControllerHarness create(String profile, double setpoint, long seed) {
+        double base = setpoint * 0.4;
+        return switch (profile) {
+            case "step" -> new ControllerHarness(setpoint, seed,
+                    new Phase("calm", 200, base, base, setpoint * 0.2, setpoint * 0.2),
+                    new Phase("flood", 600, base, base, setpoint * 1.5, setpoint * 1.5),
+                    new Phase("flood ends", 400, base, base, setpoint * 0.2, setpoint * 0.2),
+                    new Phase("flood", 400, base, base, setpoint * 1.5, setpoint * 1.5),
+                    new Phase("other load", 600, setpoint * 1.5, setpoint * 1.5, setpoint * 1.5, setpoint * 1.5),
+                    new Phase("load gone", 400, base, base, setpoint * 1.5, setpoint * 1.5));
+            case "ramp" -> new ControllerHarness(setpoint, seed,
+                    new Phase("calm", 200, base, base, 0, 0),
+                    new Phase("ramp up", 600, base, base, 0, setpoint * 2),
+                    new Phase("hold", 400, base, base, setpoint * 2, setpoint * 2),
+                    new Phase("ramp down", 600, base, base, setpoint * 2, 0));
+            default -> throw new IllegalArgumentException("Unknown load profile: " + profile);
+        };
+    }
+
+    /**
+     * Run every phase and print a report line per phase. Returns true if all phases pass.
+     */
+    public boolean run(Policy policy) {
+        TickTimeRecorder tickTimes = new TickTimeRecorder();
+        boolean passed = true;
+        int tick = 0;
+
+        System.out.println(String.format(Locale.ROOT, "Policy: %s, setpoint %.1fms", policy.name(), setpoint));
+        for (Phase phase : phases) {
+            double[] ewma = new double[phase.ticks];
+            double[] rates = new double[phase.ticks];
+            double reachable = 0; // ticks where the setpoint could be met at some rate in range
+
+            for (int i = 0; i < phase.ticks; i++, tick++) {
+                double progress = phase.ticks > 1 ? i / (double) (phase.ticks - 1) : 1.0;
+                double base = phase.baseFrom + (phase.baseTo - phase.baseFrom) * progress;
+                double demand = phase.demandFrom + (phase.demandTo - phase.demandFrom) * progress;
+
+                double share = policy.admittedShare(tick, tickTimes);
+                double millis = (base + demand * share) * (1.0 + NOISE * (2.0 * random.nextDouble() - 1.0));
+                tickTimes.record((long) (millis * NANOS_PER_MS));
+
+                ewma[i] = tickTimes.getEwmaMillis();
+                rates[i] = share;
+                if (base + demand * AdmissionController.MIN_RATE <= setpoint && base + demand >= setpoint) {
+                    reachable++;
+                }
+            }
+            passed &= report(phase, ewma, rates, reachable / phase.ticks > 0.5);
+        }
+        System.out.println(passed ? "Result: PASS - converged without oscillation" : "Result: FAIL");
+        return passed;
+    }
+
+    private boolean report(Phase phase, double[] ewma, double[] rates, boolean reachable) {
+        double band = setpoint * SETTLE_BAND;
+        boolean ramping = phase.demandFrom != phase.demandTo || phase.baseFrom != phase.baseTo;
+
+        // SETTLING - first tick after which the EWMA stays in the band, or the rate stays
+        // pinned at the limit that pushes it towards the band
+        int settled = -1;
+        for (int i = ewma.length - 1; i >= 0; i--) {
+            boolean steady = Math.abs(ewma[i] - setpoint) <= band
+                    || (ewma[i] < setpoint && rates[i] >= AdmissionController.MAX_RATE)
+                    || (ewma[i] > setpoint && rates[i] <= AdmissionController.MIN_RATE);
+            if (!steady) {
+                break;
+            }
+            settled = i;
+        }
+
+        double overshoot = 0;
+        for (double value : ewma) {
+            overshoot = Math.max(overshoot, value - setpoint);
+        }
+
+        // OSCILLATION - rate direction reversals after settling, swing over the second half
+        int reversals = 0;
+        double minRate = Double.MAX_VALUE;
+        double maxRate = -Double.MAX_VALUE;
+        int from = settled >= 0 ? settled : ewma.length / 2;
+        double lastStep = 0;
+        for (int i = from + 1; i < rates.length; i++) {
+            double step = rates[i] - rates[i - 1];
+            if (Math.abs(step) >= REVERSAL_STEP) {
+                if (lastStep != 0 && Math.signum(step) != Math.signum(lastStep)) {
+                    reversals++;
+                }
+                lastStep = step;
+            }
+        }
+        for (int i = Math.max(from, rates.length / 2); i < rates.length; i++) {
+            minRate = Math.min(minRate, rates[i]);
+            maxRate = Math.max(maxRate, rates[i]);
+        }
+        double swing = maxRate - minRate;
+
+        // A ramp moves the operating point, so only the swing around the trend is limited by reversals
+        boolean pass = settled >= 0 && settled <= MAX_SETTLE_TICKS && reversals <= MAX_REVERSALS
+                && (ramping || swing <= MAX_SWING);
+        System.out.println(String.format(Locale.ROOT,
+                "  %-11s %4d ticks: settled %s, overshoot %.1fms, end %.1fms at rate %.2f, reversals %d, swing %.2f%s -> %s",
+                phase.name, ewma.length, settled >= 0 ? "after " + settled + " ticks" : "never",
+                Math.max(0, overshoot), ewma[ewma.length - 1], rates[rates.length - 1], reversals, swing,
+                reachable ? "" : " (outside control range)", pass ? "ok" : "FAIL"));
+        return pass;
+    }
+}
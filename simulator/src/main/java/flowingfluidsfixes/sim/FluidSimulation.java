@@ -0,0 +1,302 @@
+package flowingfluidsfixes.sim;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+
+import java.util.Random;
+
+/**
+ * FLUID SIMULATION - finite fluid rules over a VoxelGrid, ticked like a level
+ *
+ * Follows the shape of Flowing Fluids' tick: fluid first drains down as far as the
+ * cell below has room, then the rest levels out sideways. The side direction is the
+ * one with the nearest drop, found with the same depth-limited slope search, with
+ * the lowest neighbour winning ties. On flat ground a cell only gives to a neighbour
+ * at least two lower, and one unit can always move towards a drop.
+ *
+ * Ticks are scheduled TICK_DELAY game ticks ahead, at most one pending tick per cell,
+ * and a changed cell schedules its fluid neighbours, as neighbour updates do in game.
+ * All randomness comes from one seeded Random, so a run is fully deterministic.
+ */
+public class FluidSimulation {
+    // CONFIGURATION - water defaults
+    public static final int TICK_DELAY = 5;
+    public static final int MAX_SLOPE_DISTANCE = 4;
+    private static final int NO_DROP = 1000;
+
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DZ = {-1, 0, 1, 0};
+
+    private final VoxelGrid grid;
+    private final TickAdmission admission;
+    private final ScratchPositions positions;
+    private final Random random;
+    private final long costPerTickNanos;
+
+    // SCHEDULER - ring of due sets, one pending tick per cell
+    private final IntLinkedOpenHashSet[] schedule = new IntLinkedOpenHashSet[TICK_DELAY + 1];
+    private final boolean[] pending;
+    private IntLinkedOpenHashSet carried = new IntLinkedOpenHashSet();
+    private IntLinkedOpenHashSet running = new IntLinkedOpenHashSet();
+    private final IntArrayList inflows = new IntArrayList();
+    private long gameTime = 0;
+    private double lastTickMillis = 0;
+
+    // STATISTICS
+    private long fluidTicks = 0;
+    private long updates = 0;
+    private long deferredTicks = 0;
+    private int peakDueTicks = 0;
+
+    /**
+     * @param costPerTickNanos simulated cost of one fluid tick, charged to the admission
+     */
+    public FluidSimulation(VoxelGrid grid, TickAdmission admission, ScratchPositions positions, long seed, long costPerTickNanos) {
+        this.grid = grid;
+        this.admission = admission;
+        this.positions = positions;
+        this.random = new Random(seed);
+        this.costPerTickNanos = costPerTickNanos;
+        this.pending = new boolean[grid.volume()];
+        for (int i = 0; i < schedule.length; i++) {
+            schedule[i] = new IntLinkedOpenHashSet();
+        }
+    }
+
+    public VoxelGrid getGrid() {
+        return grid;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Keep a cell full every game tick - a spring or an open pipe
+     */
+    public void addInflow(int x, int y, int z) {
+        inflows.add(grid.index(x, y, z));
+    }
+
+    public void schedule(int index) {
+        if (!pending[index]) {
+            pending[index] = true;
+            schedule[(int) ((gameTime + TICK_DELAY) % schedule.length)].add(index);
+        }
+    }
+
+    /**
+     * Schedule a changed cell and every neighbour holding fluid
+     */
+    public void scheduleAround(int index) {
+        int x = grid.x(index);
+        int y = grid.y(index);
+        int z = grid.z(index);
+        if (grid.get(index) > 0) {
+            schedule(index);
+        }
+        scheduleIfFluid(x, y - 1, z);
+        scheduleIfFluid(x, y + 1, z);
+        for (int d = 0; d < 4; d++) {
+            scheduleIfFluid(x + DX[d], y, z + DZ[d]);
+        }
+    }
+
+    private void scheduleIfFluid(int x, int y, int z) {
+        if (grid.get(x, y, z) > 0) {
+            schedule(grid.index(x, y, z));
+        }
+    }
+
+    public boolean isIdle() {
+        if (!inflows.isEmpty() || !carried.isEmpty()) {
+            return false;
+        }
+        for (IntLinkedOpenHashSet due : schedule) {
+            if (!due.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * GAME TICK - refill inflows, then run the ticks that are due plus those deferred
+     */
+    public void runTick() {
+        admission.startTick(lastTickMillis);
+        long spentNanos = 0;
+
+        for (int i = 0; i < inflows.size(); i++) {
+            int index = inflows.getInt(i);
+            if (grid.get(index) >= 0 && grid.get(index) < VoxelGrid.FULL) {
+                setAmount(index, VoxelGrid.FULL);
+            }
+        }
+
+        // Deferred ticks go first, then this tick's - the same order the backlog drains in
+        IntLinkedOpenHashSet due = schedule[(int) (gameTime % schedule.length)];
+        IntLinkedOpenHashSet current = carried;
+        current.addAll(due);
+        due.clear();
+        carried = running;
+        running = current;
+        peakDueTicks = Math.max(peakDueTicks, current.size());
+
+        for (IntIterator it = current.iterator(); it.hasNext(); ) {
+            int index = it.nextInt();
+            if (!admission.tryAdmit()) {
+                carried.add(index);
+                deferredTicks++;
+                continue;
+            }
+            pending[index] = false;
+            tickFluid(index);
+            fluidTicks++;
+            admission.recordCost(costPerTickNanos);
+            spentNanos += costPerTickNanos;
+        }
+        current.clear();
+
+        lastTickMillis = spentNanos / 1_000_000.0;
+        gameTime++;
+    }
+
+    /**
+     * FLUID TICK - drain down, then level out sideways
+     */
+    private void tickFluid(int index) {
+        int amount = grid.get(index);
+        if (amount <= 0) {
+            return;
+        }
+        int x = grid.x(index);
+        int y = grid.y(index);
+        int z = grid.z(index);
+
+        // DOWN - as much as the cell below has room for
+        byte below = grid.get(x, y - 1, z);
+        if (below == VoxelGrid.SINK) {
+            setAmount(index, VoxelGrid.AIR);
+            return;
+        }
+        if (below >= 0 && below < VoxelGrid.FULL) {
+            int moved = Math.min(amount, VoxelGrid.FULL - below);
+            setAmount(grid.index(x, y - 1, z), below + moved);
+            amount -= moved;
+            setAmount(index, amount);
+            if (amount == 0) {
+                return;
+            }
+        }
+
+        // SIDES - nearest drop first, then lowest neighbour
+        int start = random.nextInt(4);
+        int bestDirection = -1;
+        int bestDrop = NO_DROP;
+        int bestAmount = amount;
+        for (int k = 0; k < 4; k++) {
+            int d = (start + k) & 3;
+            byte neighbor = grid.get(x + DX[d], y, z + DZ[d]);
+            if (neighbor == VoxelGrid.SOLID) {
+                continue;
+            }
+            int neighborAmount = neighbor == VoxelGrid.SINK ? 0 : neighbor;
+            if (neighborAmount >= amount) {
+                continue;
+            }
+            int drop = neighbor == VoxelGrid.SINK || canFlowDown(x + DX[d], y, z + DZ[d])
+                    ? 1 : slopeDistance(x + DX[d], y, z + DZ[d], (d + 2) & 3, 1, amount);
+            if (drop < bestDrop || (drop == bestDrop && neighborAmount < bestAmount)) {
+                bestDirection = d;
+                bestDrop = drop;
+                bestAmount = neighborAmount;
+            }
+        }
+        if (bestDirection < 0) {
+            return;
+        }
+
+        int difference = amount - bestAmount;
+        if (bestDrop == NO_DROP && difference < 2) {
+            return; // Level with its neighbours
+        }
+        int moved = difference / 2 + (difference % 2 != 0 && random.nextBoolean() ? 1 : 0);
+        moved = Math.max(1, moved);
+
+        int target = grid.index(x + DX[bestDirection], y, z + DZ[bestDirection]);
+        if (grid.get(target) == VoxelGrid.SINK) {
+            updates++;
+        } else {
+            setAmount(target, bestAmount + moved);
+        }
+        setAmount(index, amount - moved);
+    }
+
+    private boolean canFlowDown(int x, int y, int z) {
+        byte below = grid.get(x, y - 1, z);
+        return below == VoxelGrid.SINK || (below >= 0 && below < VoxelGrid.FULL);
+    }
+
+    /**
+     * SLOPE SEARCH - distance to the nearest reachable drop, NO_DROP if none in range
+     */
+    private int slopeDistance(int x, int y, int z, int from, int distance, int amount) {
+        int best = NO_DROP;
+        ScratchPositions.Pos pos = positions.acquire();
+        try {
+            for (int d = 0; d < 4; d++) {
+                if (d == from) {
+                    continue;
+                }
+                pos.set(x + DX[d], y, z + DZ[d]);
+                byte neighbor = grid.get(pos.x, pos.y, pos.z);
+                if (neighbor == VoxelGrid.SOLID || neighbor >= amount) {
+                    continue;
+                }
+                if (neighbor == VoxelGrid.SINK || canFlowDown(pos.x, pos.y, pos.z)) {
+                    return distance + 1;
+                }
+                if (distance + 1 < MAX_SLOPE_DISTANCE) {
+                    best = Math.min(best, slopeDistance(pos.x, pos.y, pos.z, (d + 2) & 3, distance + 1, amount));
+                }
+            }
+        } finally {
+            positions.release(pos);
+        }
+        return best;
+    }
+
+    private void setAmount(int index, int amount) {
+        if (grid.get(index) != amount) {
+            grid.set(index, (byte) amount);
+            updates++;
+            scheduleAround(index);
+        }
+    }
+
+    public long getGameTime() {
+        return gameTime;
+    }
+
+    public long getFluidTicks() {
+        return fluidTicks;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getDeferredTicks() {
+        return deferredTicks;
+    }
+
+    public int getPeakDueTicks() {
+        return peakDueTicks;
+    }
+
+    public int getBacklog() {
+        return carried.size();
+    }
+}
@@ -0,0 +1,161 @@
+package flowingfluidsfixes.sim;
+
+import flowingfluidsfixes.ObjectPool;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * HEADLESS FLUID SIMULATOR - reproduce fluid floods without a server
+ *
+ * Usage: FluidSimulator <dam_break|ocean_drain|cave_fill> [--scale N] [--ticks N] [--seed N]
+ *                       [--budget-ms X] [--base-mspt X] [--cost-us X] [--pool]
+ *        FluidSimulator replay <file.fflog> [--budget-ms X] [--cost-us X]
+ *        FluidSimulator controller <step|ramp> [--setpoint X] [--seed N] [--modulo]
+ *
+ * Runs until the world settles or the tick limit is reached and reports fluid
+ * updates per second and allocation rate. --budget-ms plugs in the mod's
+ * FluidTickBudget, --pool routes slope search positions through ObjectPool.
+ * The final checksum is the same for the same arguments on every machine.
+ *
+ * replay runs a log written by FluidEventRecorder through the same admission and
+ * compares its decisions with the recorded ones.
+ *
+ * controller drives the mod's AdmissionController (or, with --modulo, the old
+ * modulo skipping) against a step or ramp load and exits non-zero unless every
+ * load phase converges without oscillation.
+ */
+public class FluidSimulator {
+    private FluidSimulator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: FluidSimulator <dam_break|ocean_drain|cave_fill> [--scale N] [--ticks N] [--seed N]"
+                    + " [--budget-ms X] [--base-mspt X] [--cost-us X] [--pool]");
+            System.out.println("       FluidSimulator replay <file.fflog> [--budget-ms X] [--cost-us X]");
+            System.out.println("       FluidSimulator controller <step|ramp> [--setpoint X] [--seed N] [--modulo]");
+            return;
+        }
+        if (args[0].equals("replay")) {
+            replay(args);
+            return;
+        }
+        if (args[0].equals("controller")) {
+            controller(args);
+            return;
+        }
+
+        Scenario scenario = Scenario.valueOf(args[0].toUpperCase(Locale.ROOT));
+        int scale = 1;
+        int maxTicks = 6000;
+        long seed = 42L;
+        double budgetMillis = 0;
+        double baseMSPT = 20.0;
+        double costMicros = 20.0; // FluidTickBudget's initial per-operation estimate
+        boolean pooled = false;
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scale" -> scale = Integer.parseInt(args[++i]);
+                case "--ticks" -> maxTicks = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--budget-ms" -> budgetMillis = Double.parseDouble(args[++i]);
+                case "--base-mspt" -> baseMSPT = Double.parseDouble(args[++i]);
+                case "--cost-us" -> costMicros = Double.parseDouble(args[++i]);
+                case "--pool" -> pooled = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        TickAdmission admission = budgetMillis > 0 ? new BudgetAdmission(budgetMillis, baseMSPT) : TickAdmission.UNLIMITED;
+        ScratchPositions positions = pooled
+                ? ScratchPositions.pooled(new ObjectPool<>(ScratchPositions.Pos::new, ScratchPositions.Pos::reset, pos -> { }))
+                : ScratchPositions.ALLOCATING;
+
+        FluidSimulation sim = new FluidSimulation(scenario.createGrid(scale), admission, positions, seed, (long) (costMicros * 1000));
+        scenario.populate(sim, sim.getRandom());
+        long startFluid = sim.getGrid().totalFluid();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+
+        while (sim.getGameTime() < maxTicks && !sim.isIdle()) {
+            sim.runTick();
+        }
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        long allocatedBytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+        double seconds = elapsedNanos / 1_000_000_000.0;
+
+        System.out.println(String.format(Locale.ROOT, "Scenario: %s, scale %d, seed %d, %dx%dx%d",
+                scenario, scale, seed, sim.getGrid().getSizeX(), sim.getGrid().getSizeY(), sim.getGrid().getSizeZ()));
+        System.out.println(String.format(Locale.ROOT, "Game ticks: %d (%s), fluid ticks: %d, deferred: %d, peak due: %d, backlog: %d",
+                sim.getGameTime(), sim.isIdle() ? "settled" : "tick limit", sim.getFluidTicks(), sim.getDeferredTicks(),
+                sim.getPeakDueTicks(), sim.getBacklog()));
+        System.out.println(String.format(Locale.ROOT, "Updates: %d in %.3fs = %.0f updates/s, %.0f fluid ticks/s",
+                sim.getUpdates(), seconds, sim.getUpdates() / seconds, sim.getFluidTicks() / seconds));
+        System.out.println(String.format(Locale.ROOT, "Allocation: %.1f MB = %.1f MB/s, %.1f bytes/update",
+                allocatedBytes / 1048576.0, allocatedBytes / 1048576.0 / seconds,
+                sim.getUpdates() > 0 ? allocatedBytes / (double) sim.getUpdates() : 0.0));
+        System.out.println(String.format(Locale.ROOT, "Fluid: %d -> %d, checksum %016x",
+                startFluid, sim.getGrid().totalFluid(), sim.getGrid().checksum()));
+        System.out.println(admission.getStats() + " | " + positions.getStats());
+    }
+
+    /**
+     * REPLAY - a recorded log through the admission, against its recorded decisions
+     */
+    private static void replay(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("replay needs a log file");
+        }
+        double budgetMillis = 0;
+        double costMicros = 20.0;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--budget-ms" -> budgetMillis = Double.parseDouble(args[++i]);
+                case "--cost-us" -> costMicros = Double.parseDouble(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Recorded MSPT already includes everything else the server did
+        double budget = budgetMillis;
+        Supplier<TickAdmission> admissions = () -> budget > 0 ? new BudgetAdmission(budget, 0.0) : TickAdmission.UNLIMITED;
+        ReplayHarness harness = new ReplayHarness(admissions, (long) (costMicros * 1000));
+        long events = harness.replay(Paths.get(args[1]));
+        harness.printReport(events);
+    }
+
+    /**
+     * CONTROLLER - admission policy against a simulated step or ramp load
+     */
+    private static void controller(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("controller needs a load profile");
+        }
+        double setpoint = 15.0; // msptSetpoint default
+        long seed = 42L;
+        boolean modulo = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--setpoint" -> setpoint = Double.parseDouble(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--modulo" -> modulo = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ControllerHarness harness = ControllerHarness.create(args[1], setpoint, seed);
+        ControllerHarness.Policy policy = modulo ? ControllerHarness.modulo(setpoint) : ControllerHarness.controller(setpoint);
+        if (!harness.run(policy)) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package flowingfluidsfixes.sim;
+
+import flowingfluidsfixes.FluidEventLog;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * REPLAY HARNESS - run a recorded fluid event stream through a TickAdmission
+ *
+ * Events between two TICK records form one server tick. As in game, every dimension
+ * has its own admission and its own placement backlog. Each event is offered to its
+ * dimension's admission once, in recorded order, and the decision is compared with
+ * the recorded one. Rejected fluid placements are deferred into the backlog, which
+ * drains after the tick's events from what is left of the budget; rejected
+ * NeighborNotify events are dropped. Backlog drains spend budget but are not
+ * compared, since the recording has no event for them.
+ *
+ * Events the server turned away before or after the budget - startup, emergency and
+ * far skips - are gated as recorded: they are not offered to the admission, spend no
+ * budget and are left out of the comparison. The admissions are started with each
+ * tick's recorded MSPT, so strategies are compared on the load that was actually
+ * measured.
+ */
+public class ReplayHarness implements FluidEventLog.Listener {
+    private final Supplier<TickAdmission> admissions;
+    private final long costPerEventNanos;
+
+    private final Int2ObjectLinkedOpenHashMap<Dimension> dimensions = new Int2ObjectLinkedOpenHashMap<>();
+    private final ByteArrayList tickTypes = new ByteArrayList();
+    private final ByteArrayList tickDecisions = new ByteArrayList();
+    private final IntArrayList tickDimensions = new IntArrayList();
+    private final LongArrayList tickPositions = new LongArrayList();
+    private double lastTickMillis = 0;
+
+    // STATISTICS
+    private final long[] recordedDecisions = new long[8];
+    private long ticks = 0;
+    private long gated = 0;
+    private long admitted = 0;
+    private long deferred = 0;
+    private long dropped = 0;
+    private long drained = 0;
+    private long agreed = 0;
+    private long compared = 0;
+    private int peakBacklog = 0;
+
+    /**
+     * @param admissions creates the admission of each recorded dimension
+     */
+    public ReplayHarness(Supplier<TickAdmission> admissions, long costPerEventNanos) {
+        this.admissions = admissions;
+        this.costPerEventNanos = costPerEventNanos;
+    }
+
+    @Override
+    public void onDimension(int dimension, String name) {
+        dimension(dimension).name = name;
+    }
+
+    @Override
+    public void onTick(long tick, float mspt) {
+        for (Dimension dimension : dimensions.values()) {
+            dimension.admission.startTick(lastTickMillis);
+        }
+
+        // This tick's events, each compared with its recorded decision exactly once
+        for (int i = 0; i < tickTypes.size(); i++) {
+            byte recorded = tickDecisions.getByte(i);
+            if (isGate(recorded)) {
+                gated++;
+                continue;
+            }
+            Dimension dimension = dimension(tickDimensions.getInt(i));
+            boolean allowed = dimension.admission.tryAdmit();
+            compared++;
+            if (allowed == (recorded == FluidEventLog.ALLOWED)) {
+                agreed++;
+            }
+            if (allowed) {
+                dimension.admission.recordCost(costPerEventNanos);
+                admitted++;
+            } else if (tickTypes.getByte(i) == FluidEventLog.TYPE_FLUID_PLACE) {
+                dimension.backlog.add(tickPositions.getLong(i)); // Same block deferred again keeps its place
+                deferred++;
+            } else {
+                dropped++;
+            }
+        }
+        tickTypes.clear();
+        tickDecisions.clear();
+        tickDimensions.clear();
+        tickPositions.clear();
+
+        // Backlog drains at the end of the tick, oldest first, each from its own dimension's budget
+        int backlogSize = 0;
+        for (Dimension dimension : dimensions.values()) {
+            while (!dimension.backlog.isEmpty() && dimension.admission.tryAdmit()) {
+                dimension.backlog.removeFirstLong();
+                dimension.admission.recordCost(costPerEventNanos);
+                drained++;
+            }
+            backlogSize += dimension.backlog.size();
+        }
+        peakBacklog = Math.max(peakBacklog, backlogSize);
+        lastTickMillis = mspt;
+        ticks++;
+    }
+
+    @Override
+    public void onEvent(byte type, int dimension, long pos, int stateId, byte decision, long gameTime) {
+        if (decision >= 0 && decision < recordedDecisions.length) {
+            recordedDecisions[decision]++;
+        }
+        tickTypes.add(type);
+        tickDecisions.add(decision);
+        tickDimensions.add(dimension);
+        tickPositions.add(pos);
+    }
+
+    // Decisions taken by a check other than the budget
+    private static boolean isGate(byte decision) {
+        return decision == FluidEventLog.SKIPPED_STARTUP || decision == FluidEventLog.SKIPPED_EMERGENCY || decision == FluidEventLog.SKIPPED_FAR;
+    }
+
+    private Dimension dimension(int id) {
+        Dimension dimension = dimensions.get(id);
+        if (dimension == null) {
+            dimension = new Dimension("dimension-" + id, admissions.get());
+            dimensions.put(id, dimension);
+        }
+        return dimension;
+    }
+
+    public long replay(Path file) throws IOException {
+        return FluidEventLog.replay(file, this);
+    }
+
+    public void printReport(long events) {
+        int backlogSize = 0;
+        StringBuilder names = new StringBuilder();
+        for (Dimension dimension : dimensions.values()) {
+            backlogSize += dimension.backlog.size();
+            names.append(names.length() > 0 ? ", " : "").append(dimension.name);
+        }
+        System.out.println(String.format(Locale.ROOT, "Replay: %d events over %d ticks, dimensions [%s]", events, ticks, names));
+        StringBuilder recorded = new StringBuilder("Recorded decisions:");
+        for (int decision = 0; decision < recordedDecisions.length; decision++) {
+            if (recordedDecisions[decision] > 0) {
+                recorded.append(' ').append(FluidEventLog.decisionName(decision)).append('=').append(recordedDecisions[decision]);
+            }
+        }
+        System.out.println(recorded);
+        System.out.println(String.format(Locale.ROOT, "Replayed: %d gated as recorded, %d admitted, %d placements deferred, %d events dropped, %d drained from backlog, peak backlog %d, %d left over",
+                gated, admitted, deferred, dropped, drained, peakBacklog, backlogSize + tickTypes.size()));
+        System.out.println(String.format(Locale.ROOT, "Agreement: %d of %d admission decisions as recorded (%.1f%%)",
+                agreed, compared, compared > 0 ? agreed * 100.0 / compared : 100.0));
+        for (Dimension dimension : dimensions.values()) {
+            System.out.println(dimension.name + ": " + dimension.admission.getStats());
+        }
+    }
+
+    /**
+     * Admission and placement backlog of one recorded dimension
+     */
+    private static class Dimension {
+        String name;
+        final TickAdmission admission;
+        final LongLinkedOpenHashSet backlog = new LongLinkedOpenHashSet();
+
+        Dimension(String name, TickAdmission admission) {
+            this.name = name;
+            this.admission = admission;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package flowingfluidsfixes.sim;
+
+import java.util.Random;
+
+/**
+ * SCENARIOS - deterministic starting worlds for the simulator
+ *
+ * Sizes scale horizontally with the scale factor; scale 1 is a few chunks.
+ */
+public enum Scenario {
+    /**
+     * A 16-deep reservoir against one side of a flat basin, with its wall gone
+     */
+    DAM_BREAK {
+        @Override
+        VoxelGrid createGrid(int scale) {
+            return new VoxelGrid(64 * scale, 24, 64 * scale);
+        }
+
+        @Override
+        void populate(FluidSimulation sim, Random random) {
+            VoxelGrid grid = sim.getGrid();
+            int damX = grid.getSizeX() / 4;
+            grid.fill(0, 0, 0, damX - 1, 15, grid.getSizeZ() - 1, VoxelGrid.FULL);
+            for (int y = 0; y <= 15; y++) {
+                for (int z = 0; z < grid.getSizeZ(); z++) {
+                    sim.schedule(grid.index(damX - 1, y, z));
+                }
+            }
+        }
+    },
+
+    /**
+     * A 12-deep sea over a floor with a 4x4 hole out of the world in the middle
+     */
+    OCEAN_DRAIN {
+        @Override
+        VoxelGrid createGrid(int scale) {
+            return new VoxelGrid(96 * scale, 16, 96 * scale);
+        }
+
+        @Override
+        void populate(FluidSimulation sim, Random random) {
+            VoxelGrid grid = sim.getGrid();
+            int centerX = grid.getSizeX() / 2;
+            int centerZ = grid.getSizeZ() / 2;
+            grid.fill(0, 0, 0, grid.getSizeX() - 1, 0, grid.getSizeZ() - 1, VoxelGrid.SOLID);
+            grid.fill(centerX - 2, 0, centerZ - 2, centerX + 1, 0, centerZ + 1, VoxelGrid.SINK);
+            grid.fill(0, 1, 0, grid.getSizeX() - 1, 12, grid.getSizeZ() - 1, VoxelGrid.FULL);
+            for (int x = centerX - 2; x <= centerX + 1; x++) {
+                for (int z = centerZ - 2; z <= centerZ + 1; z++) {
+                    sim.schedule(grid.index(x, 1, z));
+                }
+            }
+        }
+    },
+
+    /**
+     * A spring pouring into a winding cave carved from solid rock
+     */
+    CAVE_FILL {
+        @Override
+        VoxelGrid createGrid(int scale) {
+            return new VoxelGrid(48 * scale, 48, 48 * scale);
+        }
+
+        @Override
+        void populate(FluidSimulation sim, Random random) {
+            VoxelGrid grid = sim.getGrid();
+            grid.fill(0, 0, 0, grid.getSizeX() - 1, grid.getSizeY() - 1, grid.getSizeZ() - 1, VoxelGrid.SOLID);
+
+            // Random walk of spheres from the spring downwards
+            double x = grid.getSizeX() / 2.0;
+            double y = grid.getSizeY() - 4;
+            double z = grid.getSizeZ() / 2.0;
+            int steps = grid.getSizeX() * grid.getSizeZ() / 16;
+            for (int step = 0; step < steps; step++) {
+                int radius = 2 + random.nextInt(3);
+                carveSphere(grid, (int) x, (int) y, (int) z, radius);
+                x = clamp(x + random.nextInt(5) - 2, 3, grid.getSizeX() - 4);
+                y = clamp(y - random.nextInt(3) + 1 - 0.35, 3, grid.getSizeY() - 4);
+                z = clamp(z + random.nextInt(5) - 2, 3, grid.getSizeZ() - 4);
+            }
+
+            int springX = grid.getSizeX() / 2;
+            int springY = grid.getSizeY() - 4;
+            int springZ = grid.getSizeZ() / 2;
+            grid.set(springX, springY, springZ, VoxelGrid.FULL);
+            sim.addInflow(springX, springY, springZ);
+            sim.schedule(grid.index(springX, springY, springZ));
+        }
+
+        private void carveSphere(VoxelGrid grid, int cx, int cy, int cz, int radius) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    for (int dx = -radius; dx <= radius; dx++) {
+                        if (dx * dx + dy * dy + dz * dz <= radius * radius && grid.contains(cx + dx, cy + dy, cz + dz)) {
+                            grid.set(cx + dx, cy + dy, cz + dz, VoxelGrid.AIR);
+                        }
+                    }
+                }
+            }
+        }
+
+        private double clamp(double value, int min, int max) {
+            return Math.max(min, Math.min(max, value));
+        }
+    };
+
+    abstract VoxelGrid createGrid(int scale);
+
+    abstract void populate(FluidSimulation sim, Random random);
+}
@@ -0,0 +1,76 @@
+package flowingfluidsfixes.sim;
+
+import flowingfluidsfixes.ObjectPool;
+
+/**
+ * SCRATCH POSITIONS - plug-in point for position pooling in the slope search
+ *
+ * The search takes one position per recursion level and gives it back on the way
+ * out, as Flowing Fluids does with BlockPos.relative(). ALLOCATING creates a new one
+ * every time; pooled() routes them through the mod's ObjectPool.
+ */
+public interface ScratchPositions {
+    ScratchPositions ALLOCATING = new ScratchPositions() {
+        @Override
+        public Pos acquire() {
+            return new Pos();
+        }
+
+        @Override
+        public void release(Pos pos) {
+        }
+
+        @Override
+        public String getStats() {
+            return "Positions: allocating";
+        }
+    };
+
+    Pos acquire();
+
+    void release(Pos pos);
+
+    String getStats();
+
+    /**
+     * Positions from an ObjectPool shared with the caller
+     */
+    static ScratchPositions pooled(ObjectPool<Pos> pool) {
+        return new ScratchPositions() {
+            @Override
+            public Pos acquire() {
+                return pool.acquire();
+            }
+
+            @Override
+            public void release(Pos pos) {
+                pool.release(pos);
+            }
+
+            @Override
+            public String getStats() {
+                return "Positions: pooled, " + pool.getStats();
+            }
+        };
+    }
+
+    /**
+     * Stand-in for BlockPos.MutableBlockPos
+     */
+    final class Pos {
+        public int x;
+        public int y;
+        public int z;
+
+        public Pos set(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            return this;
+        }
+
+        public void reset() {
+            set(0, 0, 0);
+        }
+    }
+}
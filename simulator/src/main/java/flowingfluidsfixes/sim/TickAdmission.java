@@ -0,0 +1,45 @@
+package flowingfluidsfixes.sim;
+
+/**
+ * TICK ADMISSION - plug-in point for the mod's fluid throttling
+ *
+ * The simulator asks before every fluid tick. A rejected tick is not lost, it runs
+ * first in the next game tick, the same way FluidPlacementBacklog defers placements.
+ */
+public interface TickAdmission {
+    TickAdmission UNLIMITED = new TickAdmission() {
+        @Override
+        public void startTick(double lastTickMillis) {
+        }
+
+        @Override
+        public boolean tryAdmit() {
+            return true;
+        }
+
+        @Override
+        public void recordCost(long nanos) {
+        }
+
+        @Override
+        public String getStats() {
+            return "Admission: unlimited";
+        }
+    };
+
+    /**
+     * TICK BOUNDARY - start a new admission window
+     *
+     * @param lastTickMillis simulated duration of the previous game tick
+     */
+    void startTick(double lastTickMillis);
+
+    boolean tryAdmit();
+
+    /**
+     * Report the cost of an admitted tick
+     */
+    void recordCost(long nanos);
+
+    String getStats();
+}
@@ -0,0 +1,115 @@
+package flowingfluidsfixes.sim;
+
+import java.util.Arrays;
+
+/**
+ * VOXEL GRID - in-memory fluid world for the simulator
+ *
+ * One byte per cell: SOLID, SINK (removes any fluid that reaches it, like falling
+ * out of the world), or a fluid amount from 0 (air) to FULL. Everything outside the
+ * grid is solid.
+ */
+public class VoxelGrid {
+    public static final byte SOLID = -1;
+    public static final byte SINK = -2;
+    public static final byte AIR = 0;
+    public static final byte FULL = 8;
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final byte[] cells;
+
+    public VoxelGrid(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.cells = new byte[sizeX * sizeY * sizeZ];
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= 0 && y >= 0 && z >= 0 && x < sizeX && y < sizeY && z < sizeZ;
+    }
+
+    public int index(int x, int y, int z) {
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    public int x(int index) {
+        return index % sizeX;
+    }
+
+    public int y(int index) {
+        return index / (sizeX * sizeZ);
+    }
+
+    public int z(int index) {
+        return (index / sizeX) % sizeZ;
+    }
+
+    public byte get(int x, int y, int z) {
+        return contains(x, y, z) ? cells[index(x, y, z)] : SOLID;
+    }
+
+    public byte get(int index) {
+        return cells[index];
+    }
+
+    public void set(int x, int y, int z, byte value) {
+        cells[index(x, y, z)] = value;
+    }
+
+    public void set(int index, byte value) {
+        cells[index] = value;
+    }
+
+    public void fill(int x0, int y0, int z0, int x1, int y1, int z1, byte value) {
+        for (int y = Math.max(0, y0); y <= Math.min(sizeY - 1, y1); y++) {
+            for (int z = Math.max(0, z0); z <= Math.min(sizeZ - 1, z1); z++) {
+                int start = index(Math.max(0, x0), y, z);
+                int end = index(Math.min(sizeX - 1, x1), y, z) + 1;
+                Arrays.fill(cells, start, end, value);
+            }
+        }
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    public int volume() {
+        return cells.length;
+    }
+
+    /**
+     * Total fluid amount in the grid
+     */
+    public long totalFluid() {
+        long total = 0;
+        for (byte cell : cells) {
+            if (cell > 0) {
+                total += cell;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Order-sensitive hash of every cell - equal for equal runs
+     */
+    public long checksum() {
+        long hash = 1125899906842597L;
+        for (byte cell : cells) {
+            hash = 31 * hash + cell;
+        }
+        return hash;
+    }
+}
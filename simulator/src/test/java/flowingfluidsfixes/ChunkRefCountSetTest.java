@@ -0,0 +1,123 @@
+package flowingfluidsfixes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CHUNK REF COUNT SET - backward-shift removal across the end of the table and
+ * reference counts that are released more often than they were taken
+ */
+class ChunkRefCountSetTest {
+    private static final int CAPACITY = 16; // new ChunkRefCountSet(8), grows at 8 keys
+
+    @Test
+    void removalKeepsProbeChainThatWrapsAround() {
+        ChunkRefCountSet set = new ChunkRefCountSet(8);
+        // Three keys homed in the last slot fill it and wrap to slots 0 and 1, a key homed in 0 lands in 2
+        long[] last = keysWithHome(CAPACITY - 1, 3);
+        long first = keysWithHome(0, 1)[0];
+        for (long key : last) {
+            set.increment(key);
+        }
+        set.increment(first);
+
+        set.decrement(last[0]);
+        assertFalse(set.contains(last[0]));
+        assertTrue(set.contains(last[1]), "wrapped entry lost after removing the head of its chain");
+        assertTrue(set.contains(last[2]), "wrapped entry lost after removing the head of its chain");
+        assertTrue(set.contains(first), "entry behind the wrapped chain lost");
+        assertEquals(3, set.size());
+
+        set.decrement(last[2]);
+        assertTrue(set.contains(last[1]));
+        assertTrue(set.contains(first), "entry homed at slot 0 lost after removing a wrapped entry");
+        assertEquals(2, set.size());
+
+        set.decrement(last[1]);
+        set.decrement(first);
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void matchesReferenceCountsUnderRandomChurn() {
+        ChunkRefCountSet set = new ChunkRefCountSet(8);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // Few distinct keys, so the table stays small and its chains wrap often
+            long key = ChunkRefCountSet.pack(random.nextInt(12) - 6, random.nextInt(12) - 6);
+            if (random.nextBoolean()) {
+                set.increment(key);
+                reference.merge(key, 1, Integer::sum);
+            } else {
+                set.decrement(key);
+                reference.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            }
+            assertEquals(reference.size(), set.size());
+        }
+        for (int x = -6; x < 6; x++) {
+            for (int z = -6; z < 6; z++) {
+                long key = ChunkRefCountSet.pack(x, z);
+                assertEquals(reference.containsKey(key), set.contains(key), "chunk " + x + ", " + z);
+            }
+        }
+    }
+
+    @Test
+    void extraDecrementDoesNotUnderflow() {
+        ChunkRefCountSet set = new ChunkRefCountSet();
+        long key = ChunkRefCountSet.pack(3, -7);
+        set.increment(key);
+        set.increment(key);
+        set.decrement(key);
+        set.decrement(key);
+        set.decrement(key); // One more release than references taken
+        set.decrement(ChunkRefCountSet.pack(100, 100)); // Never added
+        assertFalse(set.contains(key));
+        assertEquals(0, set.size());
+
+        // No negative count is carried over: one reference makes it present, one release removes it
+        set.increment(key);
+        assertTrue(set.contains(key));
+        assertEquals(1, set.size());
+        set.decrement(key);
+        assertFalse(set.contains(key));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void radiiOverlapUntilBothAreRemoved() {
+        ChunkRefCountSet set = new ChunkRefCountSet();
+        set.incrementRadius(0, 0, 2);
+        set.incrementRadius(3, 0, 2);
+        assertEquals(25 + 25 - 10, set.size());
+
+        set.decrementRadius(0, 0, 2);
+        assertTrue(set.contains(ChunkRefCountSet.pack(1, 0)), "chunk still in the second radius");
+        assertFalse(set.contains(ChunkRefCountSet.pack(0, 0)));
+        assertEquals(25, set.size());
+
+        set.decrementRadius(3, 0, 2);
+        assertTrue(set.isEmpty());
+    }
+
+    // Distinct chunk keys whose home slot in a 16-slot table is the given one
+    private static long[] keysWithHome(int home, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (int x = 0; found < count; x++) {
+            long key = ChunkRefCountSet.pack(x, x * 31);
+            if ((ChunkRefCountSet.mix(key) & (CAPACITY - 1)) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,63 @@
+package flowingfluidsfixes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * STAMPED CACHE - entries live for one generation, including across the point where
+ * the generation counter wraps around
+ */
+class StampedCacheTest {
+
+    @Test
+    void newGenerationInvalidatesEntries() {
+        StampedCache cache = new StampedCache(8);
+        cache.nextGeneration(); // Every search starts a generation first
+        assertFalse(cache.hasValue(3));
+        assertFalse(cache.hasFlag(3));
+        cache.setValue(3, "state");
+        cache.setFlag(5, true);
+        assertTrue(cache.hasValue(3));
+        assertEquals("state", cache.getValue(3));
+        assertTrue(cache.hasFlag(5));
+        assertTrue(cache.getFlag(5));
+        assertFalse(cache.hasValue(5));
+        assertFalse(cache.hasFlag(3));
+
+        cache.nextGeneration();
+        assertFalse(cache.hasValue(3));
+        assertFalse(cache.hasFlag(5));
+    }
+
+    @Test
+    void entriesDoNotSurviveWrapAround() {
+        StampedCache cache = new StampedCache(8, -2);
+        cache.nextGeneration(); // -1, the last generation before the wrap
+        cache.setValue(1, "before");
+        cache.setFlag(1, true);
+        assertTrue(cache.hasValue(1));
+
+        cache.nextGeneration(); // wraps through 0
+        assertFalse(cache.hasValue(1), "value from before the wrap is still valid");
+        assertFalse(cache.hasFlag(1), "flag from before the wrap is still valid");
+    }
+
+    @Test
+    void neverWrittenEntriesStayInvalidAfterWrapAround() {
+        // Unwritten slots carry stamp 0, so the generation after the wrap must skip 0
+        StampedCache cache = new StampedCache(8, -1);
+        cache.nextGeneration();
+        for (int key = 0; key < 8; key++) {
+            assertFalse(cache.hasValue(key), "unwritten value " + key + " is valid after the wrap");
+            assertFalse(cache.hasFlag(key), "unwritten flag " + key + " is valid after the wrap");
+        }
+
+        cache.setValue(2, "after");
+        assertTrue(cache.hasValue(2));
+        cache.nextGeneration();
+        assertFalse(cache.hasValue(2));
+    }
+}
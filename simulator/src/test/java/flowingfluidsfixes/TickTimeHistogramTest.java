@@ -0,0 +1,85 @@
+package flowingfluidsfixes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TICK TIME HISTOGRAM - bucket boundaries are contiguous and within the advertised
+ * relative error, and percentiles read back within that error of the exact values
+ */
+class TickTimeHistogramTest {
+    private static final double RELATIVE_ERROR = 1.0 / 32; // one sub-bucket
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    @Test
+    void smallValuesAreExact() {
+        for (long value = 0; value < 64; value++) {
+            int index = TickTimeHistogram.indexFor(value);
+            assertEquals((int) value, index);
+            assertEquals(value, TickTimeHistogram.highestEquivalentValue(index));
+        }
+    }
+
+    @Test
+    void bucketsAreContiguousAndNarrow() {
+        long lowest = 0;
+        for (int index = 0; index < TickTimeHistogram.bucketCount(); index++) {
+            long highest = TickTimeHistogram.highestEquivalentValue(index);
+            assertTrue(highest >= lowest, "bucket " + index + " is empty");
+            assertEquals(index, TickTimeHistogram.indexFor(lowest), "lowest value of bucket " + index);
+            assertEquals(index, TickTimeHistogram.indexFor(highest), "highest value of bucket " + index);
+            assertTrue(highest - lowest <= lowest * RELATIVE_ERROR, "bucket " + index + " is wider than a sub-bucket");
+            lowest = highest + 1;
+        }
+        // The last bucket ends exactly at the largest value kept
+        assertEquals(MAX_VALUE + 1, lowest);
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        TickTimeHistogram histogram = new TickTimeHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        long[] buckets = new long[TickTimeHistogram.bucketCount()];
+        histogram.addTo(buckets);
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[buckets.length - 1]);
+        assertEquals(MAX_VALUE, TickTimeHistogram.maxValue(buckets));
+    }
+
+    @Test
+    void percentilesAreWithinOneSubBucket() {
+        TickTimeHistogram histogram = new TickTimeHistogram();
+        Random random = new Random(7);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-uniform from 1us to 1s, the range tick times live in
+            values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        long[] buckets = new long[TickTimeHistogram.bucketCount()];
+        histogram.addTo(buckets);
+
+        for (double percentile : new double[] {1, 10, 50, 90, 95, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100.0 * values.length) - 1];
+            long reported = TickTimeHistogram.valueAtPercentile(buckets, percentile);
+            // Reported as the top of the exact value's bucket, so never below it
+            assertTrue(reported >= exact, "p" + percentile + " reported " + reported + " below " + exact);
+            assertTrue(reported - exact <= exact * RELATIVE_ERROR, "p" + percentile + " reported " + reported + " for " + exact);
+        }
+        assertEquals(TickTimeHistogram.valueAtPercentile(buckets, 100), TickTimeHistogram.maxValue(buckets));
+    }
+
+    @Test
+    void emptyHistogramReadsZero() {
+        long[] buckets = new long[TickTimeHistogram.bucketCount()];
+        assertEquals(0, TickTimeHistogram.valueAtPercentile(buckets, 95));
+        assertEquals(0, TickTimeHistogram.maxValue(buckets));
+    }
+}
@@ -0,0 +1,41 @@
+package flowingfluidsfixes.sim;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CONTROLLER CONVERGENCE - the mod's AdmissionController must settle every phase of
+ * the step and ramp loads without oscillating, across the msptSetpoint range the
+ * config allows (5 to 45ms) and several noise seeds
+ */
+class ControllerHarnessTest {
+    private static final String[] PROFILES = {"step", "ramp"};
+    private static final double[] SETPOINTS_MSPT = {5.0, 10.0, 15.0, 25.0, 45.0};
+    private static final long[] SEEDS = {1L, 7L, 42L, 99L, 12345L};
+
+    static Stream<Arguments> loads() {
+        Stream.Builder<Arguments> loads = Stream.builder();
+        for (String profile : PROFILES) {
+            for (double setpoint : SETPOINTS_MSPT) {
+                for (long seed : SEEDS) {
+                    loads.add(Arguments.of(profile, setpoint, seed));
+                }
+            }
+        }
+        return loads.build();
+    }
+
+    @ParameterizedTest(name = "{0} at {1}ms, seed {2}")
+    @MethodSource("loads")
+    void controllerConverges(String profile, double setpoint, long seed) {
+        ControllerHarness harness = ControllerHarness.create(profile, setpoint, seed);
+        assertTrue(harness.run(ControllerHarness.controller(setpoint)),
+                "controller failed to converge on the " + profile + " profile at " + setpoint + "ms with seed " + seed
+                        + ", see the phase report above");
+    }
+}
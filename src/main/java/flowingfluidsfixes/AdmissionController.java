@@ -0,0 +1,119 @@
+package flowingfluidsfixes;
+
+/**
+ * ADMISSION CONTROLLER - closed-loop fluid admission rate for an MSPT setpoint
+ *
+ * Once per tick the measured MSPT (the tick time EWMA) is compared with the
+ * setpoint and a PI controller moves the admission rate, the share of throttled
+ * fluid operations that may run. There is no derivative term; single tick times
+ * are too noisy for one.
+ *
+ * The error is taken relative to the setpoint, so the loop responds the same at
+ * every setpoint the config allows: with absolute gains a 5ms setpoint only ever
+ * sees errors of a few ms and tracks a changing load far too slowly.
+ *
+ * AIMD LIMITS - the rate may fall by up to half per tick but rise by at most
+ * MAX_INCREASE, so load spikes are cut quickly and recovery never overshoots into
+ * the next spike.
+ *
+ * ANTI-WINDUP - whenever the output is clamped (rate limits or AIMD steps) the
+ * integral is recomputed from the output actually applied (back-calculation). A
+ * server that sits above the setpoint for minutes for reasons fluids can't fix
+ * pins the rate at MIN_RATE without storing up error, and recovers as soon as the
+ * load goes away.
+ *
+ * Spreader turns the rate into individual decisions spread evenly over each tick,
+ * instead of admitting or denying whole ticks.
+ *
+ * Written by the server thread only; the rate is published through ThrottleSnapshot.
+ */
+public class AdmissionController {
+    // CONFIGURATION
+    public static final double MIN_RATE = 0.25; // never below a quarter, as the old 75% skip
+    public static final double MAX_RATE = 1.0;
+    private static final double KP = 0.3; // rate per unit of relative error (0.02 per ms at 15ms)
+    private static final double KI = 0.12; // rate per unit of relative error, per tick
+    private static final double MAX_INCREASE = 0.02; // additive increase per tick
+    private static final double MAX_DECREASE_FACTOR = 0.5; // multiplicative decrease per tick
+    private static final double MIN_SETPOINT_MSPT = 1.0; // guards the relative error against a zero setpoint
+
+    private double integral = MAX_RATE;
+    private double rate = MAX_RATE;
+    private double setpoint = 0;
+    private double lastError = 0;
+
+    /**
+     * TICK BOUNDARY - move the admission rate towards the setpoint
+     *
+     * @param setpointMSPT target tick time in milliseconds
+     * @param measuredMSPT tick time EWMA in milliseconds
+     * @return the new admission rate
+     */
+    public double update(double setpointMSPT, double measuredMSPT) {
+        double error = setpointMSPT - measuredMSPT; // positive = headroom
+        double relativeError = error / Math.max(setpointMSPT, MIN_SETPOINT_MSPT);
+        integral += KI * relativeError;
+        double output = KP * relativeError + integral;
+
+        // AIMD step limits, then the rate range
+        double limited = Math.min(output, rate + MAX_INCREASE);
+        limited = Math.max(limited, rate * MAX_DECREASE_FACTOR);
+        limited = Math.max(MIN_RATE, Math.min(MAX_RATE, limited));
+
+        // ANTI-WINDUP - the integral tracks the output that was actually applied
+        if (limited != output) {
+            integral = limited - KP * relativeError;
+        }
+
+        rate = limited;
+        setpoint = setpointMSPT;
+        lastError = error;
+        return rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void reset() {
+        integral = MAX_RATE;
+        rate = MAX_RATE;
+        lastError = 0;
+    }
+
+    /**
+     * Rate for a consumer that may skip at most maxSkip of its work at MIN_RATE
+     */
+    public static double scaledRate(double rate, double maxSkip) {
+        double pressure = (MAX_RATE - rate) / (MAX_RATE - MIN_RATE);
+        return 1.0 - Math.max(0.0, Math.min(1.0, pressure)) * maxSkip;
+    }
+
+    // Simple statistics
+    public String getStats() {
+        return String.format("Admission: rate %.2f, setpoint %.1fms, error %+.1fms", rate, setpoint, lastError);
+    }
+
+    /**
+     * SPREADER - error diffusion from a rate to admit/deny decisions
+     *
+     * Each decision adds the rate to a credit and admits while a whole unit is
+     * available, so a rate of 0.6 admits 3 of every 5 calls, evenly spaced within
+     * the tick and carried across tick boundaries.
+     */
+    public static final class Spreader {
+        private double credit = 0.0;
+
+        public boolean admit(double rate) {
+            if (rate >= MAX_RATE) {
+                return true;
+            }
+            credit += rate;
+            if (credit >= 1.0) {
+                credit -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
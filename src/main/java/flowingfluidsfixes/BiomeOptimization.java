@@ -1,17 +1,27 @@
 package flowingfluidsfixes;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
 import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.biome.Biomes;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BiomeOptimization {
     // Biome optimization profiles
     private static final Map<ResourceKey<Biome>, BiomeProfile> BIOME_PROFILES = new HashMap<>();
     
+    // HOLDER CACHE - registry holders are unique per biome, so this is an identity lookup
+    private static final Map<Holder<Biome>, BiomeProfile> HOLDER_PROFILES = new ConcurrentHashMap<>();
+    
+    // CHUNK CACHE - per-level profiles at biome-quart resolution (4x4x4 cells), filled lazily
+    // for loaded chunks, server thread only
+    private static final Map<ResourceKey<Level>, ChunkCellCache> CHUNK_PROFILES = new ConcurrentHashMap<>();
+    
     // Initialize biome profiles for FLOWING FLUIDS finite fluid system
     static {
         // Ocean/River biomes - FLOWING FLUIDS treats these as finite sources
@@ -95,12 +105,81 @@ public class BiomeOptimization {
         ));
     }
     
+    private static final BiomeProfile DEFAULT_PROFILE = BIOME_PROFILES.get(null);
+    
     /**
      * Get biome optimization profile for a position
+     * Server levels resolve through the per-chunk quart cache on the server thread; anything else looks up directly
      */
     public static BiomeProfile getProfile(Level level, BlockPos pos) {
-        ResourceKey<Biome> biome = level.registryAccess().registryOrThrow(net.minecraft.core.registries.Registries.BIOME).getResourceKey(level.getBiome(pos).value()).orElse(Biomes.PLAINS);
-        return BIOME_PROFILES.getOrDefault(biome, BIOME_PROFILES.get(null));
+        if (!(level instanceof ServerLevel serverLevel) || !serverLevel.getServer().isSameThread()) {
+            return getProfile(level.getBiome(pos));
+        }
+        
+        int quartX = pos.getX() >> 2;
+        int quartY = pos.getY() >> 2;
+        int quartZ = pos.getZ() >> 2;
+        ChunkCellCache cache = CHUNK_PROFILES.computeIfAbsent(level.dimension(),
+                k -> new ChunkCellCache(level.getMinBuildHeight() >> 2, level.getHeight() >> 2));
+        long chunkKey = ChunkRefCountSet.pack(pos.getX() >> 4, pos.getZ() >> 4);
+        Object[] cells = cache.get(chunkKey);
+        if (cells == null) {
+            if (serverLevel.getChunkSource().getChunkNow(pos.getX() >> 4, pos.getZ() >> 4) == null) {
+                // Not loaded (border reads of neighbouring chunks) - nothing would evict its cells
+                return getProfile(level.getNoiseBiome(quartX, clampQuartY(level, quartY), quartZ));
+            }
+            cells = cache.create(chunkKey);
+        }
+        
+        int index = cache.cellIndex(quartX, quartY, quartZ);
+        BiomeProfile profile = (BiomeProfile) cells[index];
+        if (profile == null) {
+            // First lookup in this cell - resolve once
+            profile = getProfile(level.getNoiseBiome(quartX, clampQuartY(level, quartY), quartZ));
+            cells[index] = profile;
+        }
+        return profile;
+    }
+    
+    /**
+     * Get biome optimization profile for a biome holder
+     */
+    public static BiomeProfile getProfile(Holder<Biome> biome) {
+        BiomeProfile profile = HOLDER_PROFILES.get(biome);
+        if (profile == null) {
+            ResourceKey<Biome> key = biome.unwrapKey().orElse(Biomes.PLAINS);
+            profile = BIOME_PROFILES.getOrDefault(key, DEFAULT_PROFILE);
+            HOLDER_PROFILES.put(biome, profile);
+        }
+        return profile;
+    }
+    
+    private static int clampQuartY(Level level, int quartY) {
+        int minQuartY = level.getMinBuildHeight() >> 2;
+        int maxQuartY = minQuartY + (level.getHeight() >> 2) - 1;
+        return Math.max(minQuartY, Math.min(maxQuartY, quartY));
+    }
+    
+    /**
+     * Drop cached profiles of a chunk that is unloading
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        ChunkCellCache cache = CHUNK_PROFILES.get(level.dimension());
+        if (cache != null) {
+            cache.remove(chunkKey);
+        }
+    }
+    
+    /**
+     * Drop all cached profiles of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        CHUNK_PROFILES.remove(level.dimension());
+    }
+    
+    public static void clearCaches() {
+        CHUNK_PROFILES.clear();
+        HOLDER_PROFILES.clear();
     }
     
     public static boolean isInfiniteSource(Level level, BlockPos pos) {
@@ -0,0 +1,85 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * CHUNK CELL CACHE - per-chunk arrays of lazily resolved 4x4x4 cells
+ *
+ * The Minecraft-free core of BiomeOptimization's quart cache. Chunks are found through
+ * a direct-mapped table holding the last chunk seen in each of 32x32 slots, so a hit
+ * is an array index and one key compare; a miss falls back to the chunk map. A loaded
+ * area around a player maps to distinct slots.
+ *
+ * Not thread-safe; the owner confines each cache to the server thread.
+ */
+public final class ChunkCellCache {
+    private static final int SLOT_BITS = 5;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    // DIRECT-MAPPED FRONT - slot (chunkZ & 31, chunkX & 31) -> last chunk key and its cells
+    private final long[] slotKeys = new long[1 << (2 * SLOT_BITS)];
+    private final Object[][] slotCells = new Object[1 << (2 * SLOT_BITS)][];
+
+    private final Long2ObjectOpenHashMap<Object[]> chunks = new Long2ObjectOpenHashMap<>();
+    private final int minQuartY;
+    private final int quartHeight;
+
+    public ChunkCellCache(int minQuartY, int quartHeight) {
+        this.minQuartY = minQuartY;
+        this.quartHeight = quartHeight;
+    }
+
+    /**
+     * HOT PATH - cells of a chunk, or null if none were created
+     */
+    public Object[] get(long chunkKey) {
+        int slot = slot(chunkKey);
+        Object[] cells = slotCells[slot];
+        if (cells != null && slotKeys[slot] == chunkKey) {
+            return cells;
+        }
+        cells = chunks.get(chunkKey);
+        if (cells != null) {
+            slotKeys[slot] = chunkKey;
+            slotCells[slot] = cells;
+        }
+        return cells;
+    }
+
+    /**
+     * Create the cells of a chunk; callers only do this for loaded chunks, which are evicted on unload
+     */
+    public Object[] create(long chunkKey) {
+        Object[] cells = new Object[16 * quartHeight];
+        chunks.put(chunkKey, cells);
+        int slot = slot(chunkKey);
+        slotKeys[slot] = chunkKey;
+        slotCells[slot] = cells;
+        return cells;
+    }
+
+    public void remove(long chunkKey) {
+        chunks.remove(chunkKey);
+        int slot = slot(chunkKey);
+        if (slotCells[slot] != null && slotKeys[slot] == chunkKey) {
+            slotCells[slot] = null;
+        }
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Cell of a quart position within its chunk, with Y clamped to the level's height
+     */
+    public int cellIndex(int quartX, int quartY, int quartZ) {
+        int y = Math.max(0, Math.min(quartHeight - 1, quartY - minQuartY));
+        return (y << 4) | ((quartZ & 3) << 2) | (quartX & 3);
+    }
+
+    // Chunk keys are packed as ChunkPos.asLong: x in the low half, z in the high half
+    private static int slot(long chunkKey) {
+        return (((int) (chunkKey >>> 32) & SLOT_MASK) << SLOT_BITS) | ((int) chunkKey & SLOT_MASK);
+    }
+}
@@ -0,0 +1,95 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SPATIAL PARTITIONING - recent fluid positions per chunk
+ *
+ * Each chunk keeps a fixed-capacity ring buffer of packed BlockPos longs, keyed by
+ * packed ChunkPos in a per-dimension primitive map. Recording a fluid event is O(1)
+ * with no per-event allocation, and a chunk's history is evicted when it unloads,
+ * so memory is bounded by the number of loaded chunks.
+ */
+public class ChunkFluidHistory {
+    // CONFIGURATION
+    private static final int HISTORY_PER_CHUNK = 100;
+
+    // PER-LEVEL HISTORY - packed ChunkPos -> ring buffer of packed BlockPos
+    private static final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<LongRingBuffer>> HISTORY = new ConcurrentHashMap<>();
+
+    private ChunkFluidHistory() {
+    }
+
+    /**
+     * Record a fluid event position in its chunk history
+     */
+    public static void record(ServerLevel level, BlockPos pos) {
+        Long2ObjectOpenHashMap<LongRingBuffer> chunks = HISTORY.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+        long chunkKey = ChunkRefCountSet.pack(pos.getX() >> 4, pos.getZ() >> 4);
+        synchronized (chunks) {
+            LongRingBuffer fluids = chunks.get(chunkKey);
+            if (fluids == null) {
+                fluids = new LongRingBuffer(HISTORY_PER_CHUNK);
+                chunks.put(chunkKey, fluids);
+            }
+            fluids.add(pos.asLong());
+        }
+    }
+
+    /**
+     * Get recent fluid positions of a chunk, oldest first
+     */
+    public static long[] getRecent(ServerLevel level, long chunkKey) {
+        Long2ObjectOpenHashMap<LongRingBuffer> chunks = HISTORY.get(level.dimension());
+        if (chunks == null) {
+            return new long[0];
+        }
+        synchronized (chunks) {
+            LongRingBuffer fluids = chunks.get(chunkKey);
+            return fluids == null ? new long[0] : fluids.toArray();
+        }
+    }
+
+    /**
+     * Drop the history of a chunk that is unloading
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        Long2ObjectOpenHashMap<LongRingBuffer> chunks = HISTORY.get(level.dimension());
+        if (chunks != null) {
+            synchronized (chunks) {
+                chunks.remove(chunkKey);
+            }
+        }
+    }
+
+    /**
+     * Drop all history of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        HISTORY.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        HISTORY.clear();
+    }
+
+    /**
+     * Get number of chunks with fluid history across all levels
+     */
+    public static int getTrackedChunkCount() {
+        int total = 0;
+        for (Long2ObjectOpenHashMap<LongRingBuffer> chunks : HISTORY.values()) {
+            synchronized (chunks) {
+                total += chunks.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,259 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HOT CHUNK HEATMAP - per-chunk fluid activity over decaying windows
+ *
+ * Every chunk with fluid activity gets a row of plain counters (events, skipped
+ * events, placements, deferrals, fluid ticks, time spent), so recording is one map
+ * lookup and an array add. Every WINDOW_TICKS the window sums are folded into a
+ * decayed total, halving older windows, and chunks that went quiet are forgotten.
+ * The decayed totals rank chunks for the /ffix stats command.
+ *
+ * Server thread only: fluid events, placements, fluid ticks, chunk unloads and the
+ * command all run there, so nothing is locked.
+ */
+public class ChunkHeatmap {
+    // CONFIGURATION
+    private static final int WINDOW_TICKS = 100; // 5 second windows
+    private static final double DECAY = 0.5; // weight kept by the previous windows at each rollover
+    private static final double FORGET_BELOW = 0.5; // decayed events and ticks under this drop the chunk
+
+    // COUNTERS
+    private static final int EVENTS = 0;
+    private static final int SKIPPED = 1;
+    private static final int PLACEMENTS = 2;
+    private static final int DEFERRALS = 3;
+    private static final int FLUID_TICKS = 4;
+    private static final int NANOS = 5;
+    private static final int COUNTERS = 6;
+
+    // PER-LEVEL HEAT - packed ChunkPos -> counters
+    private static final Map<ResourceKey<Level>, LevelHeat> LEVELS = new HashMap<>();
+
+    // FLUID TICK TIMING - fluid ticks run one at a time
+    private static long fluidTickStartNanos = 0;
+    private static int ticksInWindow = 0;
+
+    // STATISTICS
+    private static long windowsRolled = 0;
+
+    private ChunkHeatmap() {
+    }
+
+    private static final class ChunkHeat {
+        private final long[] window = new long[COUNTERS];
+        private final double[] decayed = new double[COUNTERS];
+
+        private boolean roll() {
+            for (int i = 0; i < COUNTERS; i++) {
+                decayed[i] = decayed[i] * DECAY + window[i];
+                window[i] = 0;
+            }
+            return decayed[EVENTS] + decayed[PLACEMENTS] + decayed[DEFERRALS] + decayed[FLUID_TICKS] >= FORGET_BELOW;
+        }
+    }
+
+    private static final class LevelHeat {
+        private final Long2ObjectOpenHashMap<ChunkHeat> chunks = new Long2ObjectOpenHashMap<>();
+        private long windowBudgetNanos = 0;
+        private double decayedBudgetNanos = 0.0;
+    }
+
+    /**
+     * Hot chunk of one dimension, as rates per tick over the decayed windows
+     */
+    public static final class HotChunk {
+        public final int chunkX;
+        public final int chunkZ;
+        public final double eventsPerTick;
+        public final double skipRate;
+        public final double placementsPerTick;
+        public final double deferralRate;
+        public final double fluidTicksPerTick;
+        public final double millisPerTick;
+        public final double budgetUsage; // Share of the dimension's fluid budget
+
+        private HotChunk(long chunkKey, double[] decayed, double ticks, double budgetNanos) {
+            chunkX = ChunkPos.getX(chunkKey);
+            chunkZ = ChunkPos.getZ(chunkKey);
+            eventsPerTick = decayed[EVENTS] / ticks;
+            skipRate = decayed[EVENTS] > 0 ? decayed[SKIPPED] / decayed[EVENTS] : 0.0;
+            placementsPerTick = decayed[PLACEMENTS] / ticks;
+            double placed = decayed[PLACEMENTS] + decayed[DEFERRALS];
+            deferralRate = placed > 0 ? decayed[DEFERRALS] / placed : 0.0;
+            fluidTicksPerTick = decayed[FLUID_TICKS] / ticks;
+            millisPerTick = decayed[NANOS] / ticks / 1_000_000.0;
+            budgetUsage = budgetNanos > 0 ? decayed[NANOS] / budgetNanos : 0.0;
+        }
+    }
+
+    /**
+     * Record a NeighborNotify event and whether the throttle skipped it
+     */
+    public static void recordEvent(ServerLevel level, BlockPos pos, boolean skipped) {
+        ChunkHeat heat = heat(level, pos);
+        heat.window[EVENTS]++;
+        if (skipped) {
+            heat.window[SKIPPED]++;
+        }
+    }
+
+    /**
+     * Record an applied fluid placement and its measured cost, 0 when it wasn't timed
+     */
+    public static void recordPlacement(ServerLevel level, BlockPos pos, long nanos) {
+        ChunkHeat heat = heat(level, pos);
+        heat.window[PLACEMENTS]++;
+        if (nanos > 0) {
+            heat.window[NANOS] += nanos;
+        }
+    }
+
+    /**
+     * Record a fluid placement deferred to the backlog
+     */
+    public static void recordDeferral(ServerLevel level, BlockPos pos) {
+        heat(level, pos).window[DEFERRALS]++;
+    }
+
+    /**
+     * FLUID TICK TIMING - mark the start of a fluid tick
+     */
+    public static void startFluidTick() {
+        fluidTickStartNanos = System.nanoTime();
+    }
+
+    /**
+     * FLUID TICK TIMING - charge the time since startFluidTick() to the fluid's chunk.
+     * Returns false if no fluid tick was started.
+     */
+    public static boolean endFluidTick(ServerLevel level, BlockPos pos) {
+        if (fluidTickStartNanos == 0) {
+            return false;
+        }
+        long nanos = System.nanoTime() - fluidTickStartNanos;
+        fluidTickStartNanos = 0;
+        ChunkHeat heat = heat(level, pos);
+        heat.window[FLUID_TICKS]++;
+        heat.window[NANOS] += nanos;
+        return true;
+    }
+
+    private static ChunkHeat heat(ServerLevel level, BlockPos pos) {
+        LevelHeat levelHeat = LEVELS.computeIfAbsent(level.dimension(), k -> new LevelHeat());
+        long chunkKey = ChunkRefCountSet.pack(pos.getX() >> 4, pos.getZ() >> 4);
+        ChunkHeat heat = levelHeat.chunks.get(chunkKey);
+        if (heat == null) {
+            heat = new ChunkHeat();
+            levelHeat.chunks.put(chunkKey, heat);
+        }
+        return heat;
+    }
+
+    /**
+     * TICK BOUNDARY - add each dimension's fluid budget and roll the window when it's full
+     */
+    public static void endTick(Iterable<ServerLevel> levels) {
+        for (ServerLevel level : levels) {
+            LevelHeat levelHeat = LEVELS.get(level.dimension());
+            if (levelHeat != null) {
+                levelHeat.windowBudgetNanos += LevelThrottleState.get(level).getBudget().getBudgetNanos();
+            }
+        }
+
+        if (++ticksInWindow < WINDOW_TICKS) {
+            return;
+        }
+        ticksInWindow = 0;
+        for (LevelHeat levelHeat : LEVELS.values()) {
+            levelHeat.decayedBudgetNanos = levelHeat.decayedBudgetNanos * DECAY + levelHeat.windowBudgetNanos;
+            levelHeat.windowBudgetNanos = 0;
+            ObjectIterator<Long2ObjectMap.Entry<ChunkHeat>> chunks = levelHeat.chunks.long2ObjectEntrySet().fastIterator();
+            while (chunks.hasNext()) {
+                if (!chunks.next().getValue().roll()) {
+                    chunks.remove(); // Quiet long enough to have decayed away
+                }
+            }
+        }
+        windowsRolled++;
+    }
+
+    /**
+     * Get the hottest chunks of a dimension by time spent, then by event count
+     */
+    public static List<HotChunk> getHotChunks(ServerLevel level, int count) {
+        LevelHeat levelHeat = LEVELS.get(level.dimension());
+        List<HotChunk> hot = new ArrayList<>();
+        if (levelHeat == null || count <= 0) {
+            return hot;
+        }
+
+        // Decayed totals sum to (window sum) / (1 - DECAY) in steady state
+        double ticks = WINDOW_TICKS / (1.0 - DECAY);
+        List<Long2ObjectMap.Entry<ChunkHeat>> entries = new ArrayList<>(levelHeat.chunks.long2ObjectEntrySet());
+        entries.sort((a, b) -> {
+            double[] x = a.getValue().decayed;
+            double[] y = b.getValue().decayed;
+            int byTime = Double.compare(y[NANOS], x[NANOS]);
+            return byTime != 0 ? byTime : Double.compare(y[EVENTS], x[EVENTS]);
+        });
+        for (int i = 0; i < Math.min(count, entries.size()); i++) {
+            double[] decayed = entries.get(i).getValue().decayed;
+            if (decayed[EVENTS] + decayed[PLACEMENTS] + decayed[DEFERRALS] + decayed[FLUID_TICKS] == 0.0) {
+                break; // Nothing rolled into a window yet
+            }
+            hot.add(new HotChunk(entries.get(i).getLongKey(), decayed, ticks, levelHeat.decayedBudgetNanos));
+        }
+        return hot;
+    }
+
+    /**
+     * Drop the heat of a chunk that is unloading
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        LevelHeat levelHeat = LEVELS.get(level.dimension());
+        if (levelHeat != null) {
+            levelHeat.chunks.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Drop all heat of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        LEVELS.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        LEVELS.clear();
+        ticksInWindow = 0;
+    }
+
+    public static void resetStats() {
+        LEVELS.clear();
+        windowsRolled = 0;
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        int chunks = 0;
+        for (LevelHeat levelHeat : LEVELS.values()) {
+            chunks += levelHeat.chunks.size();
+        }
+        return String.format("Heatmap: %d chunks, %d windows", chunks, windowsRolled);
+    }
+}
@@ -0,0 +1,181 @@
+package flowingfluidsfixes;
+
+import java.util.Arrays;
+
+/**
+ * PRIMITIVE CHUNK SET - open-addressed long set with per-key reference counts
+ *
+ * Keys are packed chunk coordinates (same layout as ChunkPos.asLong). Each key holds
+ * a count so overlapping player radii can be added and removed independently; a key
+ * is present while its count is above zero. contains() is a single probe sequence
+ * over primitive arrays and never allocates.
+ *
+ * Not thread-safe - owned by the server thread.
+ */
+public class ChunkRefCountSet {
+    private static final long EMPTY_KEY = Long.MIN_VALUE; // never produced by ChunkPos.asLong for valid chunks
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public ChunkRefCountSet() {
+        this(256);
+    }
+
+    public ChunkRefCountSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Pack chunk coordinates the same way as ChunkPos.asLong
+     */
+    public static long pack(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    /**
+     * HOT PATH - check if a packed chunk is present
+     */
+    public boolean contains(long key) {
+        int index = mix(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY_KEY) {
+            if (current == key) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Add one reference to a packed chunk
+     */
+    public void increment(long key) {
+        int index = mix(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY_KEY) {
+            if (current == key) {
+                counts[index]++;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        counts[index] = 1;
+        if (++size >= resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove one reference from a packed chunk, dropping it when no references remain
+     */
+    public void decrement(long key) {
+        int index = mix(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY_KEY) {
+            if (current == key) {
+                if (--counts[index] <= 0) {
+                    removeAt(index);
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Add one reference to every chunk within radius of the center chunk
+     */
+    public void incrementRadius(int centerX, int centerZ, int radius) {
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                increment(pack(centerX + dx, centerZ + dz));
+            }
+        }
+    }
+
+    /**
+     * Remove one reference from every chunk within radius of the center chunk
+     */
+    public void decrementRadius(int centerX, int centerZ, int radius) {
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                decrement(pack(centerX + dx, centerZ + dz));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY_KEY) {
+                int index = mix(key) & mask;
+                while (keys[index] != EMPTY_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones
+     */
+    private void removeAt(int index) {
+        size--;
+        int last = index;
+        int slot = (index + 1) & mask;
+        long key;
+        while ((key = keys[slot]) != EMPTY_KEY) {
+            int home = mix(key) & mask;
+            // Move the entry back if its home slot is not between last (exclusive) and slot (inclusive)
+            if (last <= slot ? (home <= last || home > slot) : (home <= last && home > slot)) {
+                keys[last] = key;
+                counts[last] = counts[slot];
+                last = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[last] = EMPTY_KEY;
+        counts[last] = 0;
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -16,6 +16,7 @@ public class ConfigManager {
     public static ForgeConfigSpec.IntValue MAX_FLUID_UPDATES_PER_TICK;
     public static ForgeConfigSpec.IntValue SPREAD_CHECK_RADIUS;
     public static ForgeConfigSpec.IntValue TICK_DELAY;
+    public static ForgeConfigSpec.DoubleValue FLUID_TICK_BUDGET_MS;
     
     // Feature toggles
     public static ForgeConfigSpec.BooleanValue ENABLE_FLOATING_WATER_FIX;
@@ -27,6 +28,13 @@ public class ConfigManager {
     public static ForgeConfigSpec.DoubleValue FLUID_FLOW_SPEED_MULTIPLIER;
     public static ForgeConfigSpec.IntValue BATCH_SIZE;
     public static ForgeConfigSpec.BooleanValue ADAPTIVE_PERFORMANCE;
+    public static ForgeConfigSpec.IntValue SLEEPING_SECTION_TICKS;
+    public static ForgeConfigSpec.IntValue LEVELING_TOKENS_PER_TICK;
+    public static ForgeConfigSpec.BooleanValue RECORD_FLUID_EVENTS;
+    public static ForgeConfigSpec.IntValue LOD_MID_INTERVAL;
+    public static ForgeConfigSpec.IntValue LOD_FAR_INTERVAL;
+    public static ForgeConfigSpec.DoubleValue SETTLING_BUDGET_MS;
+    public static ForgeConfigSpec.DoubleValue MSPT_SETPOINT;
     
     static {
         initCommonConfig();
@@ -50,6 +58,14 @@ public class ConfigManager {
         TICK_DELAY = builder
                 .comment("Delay between fluid ticks (higher = better performance, slower flow)")
                 .defineInRange("tickDelay", 2, 1, 10);
+                
+        FLUID_TICK_BUDGET_MS = builder
+                .comment("Base time budget in milliseconds for fluid work per tick (grows into idle headroom, shrinks under load)")
+                .defineInRange("fluidTickBudgetMs", 8.0, 0.5, 40.0);
+                
+        MSPT_SETPOINT = builder
+                .comment("Tick time in milliseconds the fluid admission controller steers towards (lower = throttles earlier)")
+                .defineInRange("msptSetpoint", 15.0, 5.0, 45.0);
         
         builder.comment("Feature Toggles");
         ENABLE_FLOATING_WATER_FIX = builder
@@ -80,6 +96,30 @@ public class ConfigManager {
         ADAPTIVE_PERFORMANCE = builder
                 .comment("Enable adaptive performance scaling based on server load")
                 .define("adaptivePerformance", true);
+                
+        SLEEPING_SECTION_TICKS = builder
+                .comment("Ticks without a block change, once leveling there keeps finding nothing to move, before a section's random-tick fluid leveling is skipped (0 = never skip)")
+                .defineInRange("sleepingSectionTicks", 1200, 0, 72000);
+                
+        LEVELING_TOKENS_PER_TICK = builder
+                .comment("Random-tick fluid leveling attempts admitted per tick at full headroom, shared by all chunks (0 = no cap)")
+                .defineInRange("levelingTokensPerTick", 512, 0, 65536);
+                
+        RECORD_FLUID_EVENTS = builder
+                .comment("Record fluid events and throttle decisions to flowingfluidsfixes/*.fflog for replay (debugging, grows ~24 bytes per event)")
+                .define("recordFluidEvents", false);
+                
+        LOD_MID_INTERVAL = builder
+                .comment("Fluid ticks in mid-range chunks run once every this many ticks, pending work collected in between (1 = every tick)")
+                .defineInRange("lodMidInterval", 4, 1, 40);
+                
+        LOD_FAR_INTERVAL = builder
+                .comment("Fluid ticks in far chunks wait for a settle pass every this many ticks (1 = every tick)")
+                .defineInRange("lodFarInterval", 100, 1, 1200);
+                
+        SETTLING_BUDGET_MS = builder
+                .comment("Time budget in milliseconds per tick for fluid ticks held back in freshly generated chunks, chunks next to players first (0 = don't hold them)")
+                .defineInRange("settlingBudgetMs", 2.0, 0.0, 20.0);
         
         builder.pop();
         
@@ -138,12 +178,19 @@ public class ConfigManager {
             LOGGER.info("  Max Fluid Updates Per Tick: {}", MAX_FLUID_UPDATES_PER_TICK.get());
             LOGGER.info("  Spread Check Radius: {}", SPREAD_CHECK_RADIUS.get());
             LOGGER.info("  Tick Delay: {}", TICK_DELAY.get());
+            LOGGER.info("  Fluid Tick Budget: {}ms", FLUID_TICK_BUDGET_MS.get());
+            LOGGER.info("  MSPT Setpoint: {}ms", MSPT_SETPOINT.get());
             LOGGER.info("  Floating Water Fix: {}", ENABLE_FLOATING_WATER_FIX.get());
             LOGGER.info("  Tick Optimization: {}", ENABLE_TICK_OPTIMIZATION.get());
             LOGGER.info("  Pressure System: {}", ENABLE_PRESSURE_SYSTEM.get());
             LOGGER.info("  Flow Speed Multiplier: {}", FLUID_FLOW_SPEED_MULTIPLIER.get());
             LOGGER.info("  Batch Size: {}", BATCH_SIZE.get());
             LOGGER.info("  Adaptive Performance: {}", ADAPTIVE_PERFORMANCE.get());
+            LOGGER.info("  Sleeping Section Ticks: {}", SLEEPING_SECTION_TICKS.get());
+            LOGGER.info("  Leveling Tokens Per Tick: {}", LEVELING_TOKENS_PER_TICK.get());
+            LOGGER.info("  Record Fluid Events: {}", RECORD_FLUID_EVENTS.get());
+            LOGGER.info("  LOD Intervals: mid {}, far {}", LOD_MID_INTERVAL.get(), LOD_FAR_INTERVAL.get());
+            LOGGER.info("  Settling Budget: {}ms", SETTLING_BUDGET_MS.get());
         }
     }
     
@@ -160,6 +207,63 @@ public class ConfigManager {
         return Math.max(100, MAX_FLUID_UPDATES_PER_TICK.get() / 2);
     }
     
+    public static long getFluidTickBudgetNanos() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 8_000_000L; // default until the config file is read
+        }
+        return (long) (FLUID_TICK_BUDGET_MS.get() * 1_000_000L);
+    }
+    
+    public static double getMsptSetpoint() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 15.0;
+        }
+        return MSPT_SETPOINT.get();
+    }
+    
+    public static boolean isTickOptimizationEnabled() {
+        return !COMMON_CONFIG.isLoaded() || ENABLE_TICK_OPTIMIZATION.get();
+    }
+    
+    public static int getSleepingSectionTicks() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 0; // nothing sleeps until the config file is read
+        }
+        return SLEEPING_SECTION_TICKS.get();
+    }
+    
+    public static int getLevelingTokensPerTick() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 0; // no cap until the config file is read
+        }
+        return LEVELING_TOKENS_PER_TICK.get();
+    }
+    
+    public static boolean isRecordFluidEvents() {
+        return COMMON_CONFIG.isLoaded() && RECORD_FLUID_EVENTS.get();
+    }
+    
+    public static int getLodMidInterval() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 1; // every tick until the config file is read
+        }
+        return LOD_MID_INTERVAL.get();
+    }
+    
+    public static int getLodFarInterval() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 1;
+        }
+        return LOD_FAR_INTERVAL.get();
+    }
+    
+    public static long getSettlingBudgetNanos() {
+        if (!COMMON_CONFIG.isLoaded()) {
+            return 0L; // hold nothing until the config file is read
+        }
+        return (long) (SETTLING_BUDGET_MS.get() * 1_000_000L);
+    }
+    
     public static boolean isLoaded() {
         return COMMON_CONFIG != null && CLIENT_CONFIG != null;
     }
@@ -1,23 +1,29 @@
 package flowingfluidsfixes;
 
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.event.server.ServerStartingEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
 import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.LevelEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.world.level.ChunkPos;
-import net.minecraft.world.entity.player.Player;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.Map;
-import java.util.List;
-import java.util.ArrayList;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * SIMPLIFIED Flowing Fluids Performance Optimizer
@@ -32,43 +38,42 @@ import java.util.ArrayList;
 public class FlowingFluidsFixes {
     public static final String MOD_ID = "flowingfluidsfixes";
     
-    // SIMPLE TRACKING - minimal overhead
-    private static final AtomicInteger totalFluidEvents = new AtomicInteger(0);
-    private static final AtomicInteger skippedFluidEvents = new AtomicInteger(0);
-    private static final AtomicInteger eventsThisTick = new AtomicInteger(0);
+    // SIMPLE TRACKING - minimal overhead, contention-free adders
+    private static final LongAdder totalFluidEvents = new LongAdder();
+    private static final LongAdder skippedFluidEvents = new LongAdder();
     
-    // SPATIAL PARTITIONING - track fluids by chunk instead of individually
-    private static final Map<String, List<BlockPos>> chunkFluids = new ConcurrentHashMap<>();
-    private static final Map<String, List<Player>> playerChunks = new ConcurrentHashMap<>();
-    
-    // SIMPLE PERFORMANCE TRACKING
-    private static long lastTickTime = 0;
-    private static double cachedMSPT = 5.0;
+    // SIMPLE PERFORMANCE TRACKING - written by the server thread only
+    private static long tickStartNanos = 0;
+    private static double cachedMSPT = 5.0; // EWMA of tick busy time
+    private static double tailMSPT = 5.0; // p95 tick time over the rolling window, never below the EWMA
     private static long lastMSPTCheck = 0;
-    private static final AtomicInteger tickCount = new AtomicInteger(0);
-    private static long totalTickTimeNanos = 0;
+    private static int tickCount = 0;
+    private static final TickTimeRecorder tickTimes = new TickTimeRecorder();
+    private static final AdmissionController admission = new AdmissionController();
+    
+    // PUBLISHED STATE - everything outside the tick bookkeeping reads this snapshot
+    private static volatile ThrottleSnapshot snapshot = ThrottleSnapshot.INITIAL;
     
     // CONFIGURATION - more aggressive for startup performance
-    private static final int MAX_FLUID_DISTANCE = 3; // reduced from 4 for startup
-    private static final int MAX_EVENTS_PER_TICK = 200; // reduced from 500 for startup
     private static final double EMERGENCY_MSPT = 30.0; // reduced from 50.0 for earlier protection
     private static final double STARTUP_MSPT = 20.0; // startup-specific threshold
     
-    // ENTITY & CHUNK THROTTLING
-    private static final double ENTITY_THROTTLE_MSPT = 15.0; // throttle entities at 15ms
-    private static final double CHUNK_THROTTLE_MSPT = 25.0; // throttle chunks at 25ms
-    private static final int ENTITY_SKIP_RATE = 2; // skip every 2nd entity during high MSPT
-    private static final int CHUNK_SKIP_RATE = 3; // skip every 3rd chunk during high MSPT
+    // ENTITY & CHUNK THROTTLING - share skipped at the lowest admission rate
+    private static final double ENTITY_MAX_SKIP = 0.5; // at most every 2nd entity
+    private static final double CHUNK_MAX_SKIP = 1.0 / 3.0; // at most every 3rd chunk
     
     // LEVEL OPERATION THROTTLING (CRITICAL)
-    private static final int MAX_LEVEL_OPERATIONS_PER_TICK = 50; // critical limit
-    private static final double LEVEL_THROTTLE_MSPT = 10.0; // throttle level ops at 10ms
-    private static final AtomicInteger levelOpsThisTick = new AtomicInteger(0);
+    // Per-tick counters, fluid budgets and admission spreaders live in LevelThrottleState, one per dimension
+    // Server-wide spreaders for callers without a level
+    private static final AdmissionController.Spreader levelOpSpreader = new AdmissionController.Spreader();
+    private static final AdmissionController.Spreader entitySpreader = new AdmissionController.Spreader();
+    private static final AdmissionController.Spreader chunkSpreader = new AdmissionController.Spreader();
     
     // STARTUP TRACKING
     private static long worldLoadTime = 0;
     private static final long STARTUP_DURATION_MS = 60000; // 1 minute startup window
     // SAFETY FLAG - prevent caching during mod initialization
+    // Both are only published through the snapshot
     private static boolean allowCaching = false;
     private static boolean isInStartup = true;
     
@@ -76,6 +81,12 @@ public class FlowingFluidsFixes {
         // Register event listener (deprecated but only working method for this Forge version)
         var bus = FMLJavaModLoadingContext.get().getModEventBus();
         bus.addListener(this::commonSetup);
+        ConfigManager.register();
+        
+        // Game events - instance handlers and static handlers are registered separately
+        MinecraftForge.EVENT_BUS.register(this);
+        MinecraftForge.EVENT_BUS.register(FlowingFluidsFixes.class);
+        FluidFlightRecorder.register();
     }
     
     private void commonSetup(final FMLCommonSetupEvent event) {
@@ -83,6 +94,7 @@ public class FlowingFluidsFixes {
         worldLoadTime = System.currentTimeMillis();
         allowCaching = true;
         isInStartup = true;
+        publishSnapshot(0);
         // Use the event parameter to avoid warning
         event.enqueueWork(() -> System.out.println("[FlowingFluidsFixes] Startup protection enabled for 60 seconds"));
     }
@@ -93,41 +105,70 @@ public class FlowingFluidsFixes {
      */
     @SubscribeEvent
     public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
-        // CHECK STARTUP STATUS
-        updateStartupStatus();
-        
-        // STARTUP PROTECTION - more aggressive during early world load
-        if (isInStartup && cachedMSPT > STARTUP_MSPT) {
-            skippedFluidEvents.incrementAndGet();
-            return;
+        // INFINITE SOURCE CACHE - a changed block can change sky access of nearby columns
+        if (event.getLevel() instanceof ServerLevel changedLevel) {
+            InfiniteSourceCache.invalidate(changedLevel, event.getPos());
         }
         
-        // EMERGENCY EXIT - skip everything if server is struggling
-        if (cachedMSPT > EMERGENCY_MSPT) {
-            skippedFluidEvents.incrementAndGet();
-            return;
-        }
+        // One snapshot for every decision about this event
+        ThrottleSnapshot throttle = snapshot;
         
-        // SIMPLE THROTTLING - limit events per tick
-        if (eventsThisTick.get() > MAX_EVENTS_PER_TICK) {
+        // STARTUP PROTECTION - more aggressive during early world load
+        if (throttle.startup && throttle.mspt > STARTUP_MSPT) {
+            skippedFluidEvents.increment();
+            recordNeighborNotify(event, FluidEventLog.SKIPPED_STARTUP);
             return;
         }
         
         if (event.getLevel() instanceof ServerLevel serverLevel) {
+            LevelThrottleState state = LevelThrottleState.get(serverLevel);
+            
+            // EMERGENCY EXIT - skip everything if this dimension is struggling
+            if (state.isEmergency()) {
+                skippedFluidEvents.increment();
+                recordNeighborNotify(event, FluidEventLog.SKIPPED_EMERGENCY);
+                return;
+            }
+            
+            // SIMPLE THROTTLING - stop once this dimension's fluid budget is spent
+            if (!state.getBudget().canAdmitEvent()) {
+                state.getBudget().reject();
+                skippedFluidEvents.increment();
+                recordNeighborNotify(event, FluidEventLog.SKIPPED_BUDGET);
+                return;
+            }
+            
             BlockPos pos = event.getPos();
             
-            // SPATIAL PARTITIONING - only process if near players in same chunks
-            if (!isPlayerInNearbyChunk(serverLevel, pos)) {
-                skippedFluidEvents.incrementAndGet();
+            // SPATIAL PARTITIONING - only process inside the near or mid ring of a player
+            if (!isPlayerInNearbyChunk(throttle, serverLevel, pos)) {
+                skippedFluidEvents.increment();
+                recordNeighborNotify(event, FluidEventLog.SKIPPED_FAR);
                 return;
             }
             
-            // SIMPLE TRACKING - add to chunk-based tracking
-            addToChunkTracking(pos);
+            // SIMPLE TRACKING - add to chunk-based tracking, timed for the budget
+            long start = System.nanoTime();
+            addToChunkTracking(throttle, serverLevel, pos);
+            long nanos = System.nanoTime() - start;
             
-            // Update counters
-            eventsThisTick.incrementAndGet();
-            totalFluidEvents.incrementAndGet();
+            // Update counters, then replace the expected event cost charged with the measured one
+            state.countEvent();
+            state.getBudget().recordEventCost(nanos);
+            totalFluidEvents.increment();
+            recordNeighborNotify(event, FluidEventLog.ALLOWED);
+        }
+    }
+    
+    /**
+     * Record a NeighborNotify decision in the chunk heatmap and any running recording
+     */
+    private static void recordNeighborNotify(BlockEvent.NeighborNotifyEvent event, byte decision) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            ChunkHeatmap.recordEvent(serverLevel, event.getPos(), decision != FluidEventLog.ALLOWED);
+            if (FluidEventRecorder.isRecording()) {
+                FluidEventRecorder.recordNeighborNotify(serverLevel, event.getPos(), event.getState(), decision);
+            }
         }
     }
     
@@ -136,14 +177,28 @@ public class FlowingFluidsFixes {
      */
     @SubscribeEvent
     public static void onFluidPlaceBlock(BlockEvent.FluidPlaceBlockEvent event) {
+        if (!(event.getLevel() instanceof ServerLevel serverLevel)) {
+            return;
+        }
+        
         // Apply level operation throttling to catch Flowing Fluids mod bypass
-        if (!shouldAllowLevelOperation()) {
-            event.setCanceled(true); // Block the fluid placement
+        if (!shouldAllowLevelOperation(serverLevel)) {
+            // DEFERRAL - queue the placement for a later tick instead of losing it
+            FluidPlacementBacklog.defer(serverLevel, event.getPos(), event.getOriginalState(), event.getNewState());
+            event.setCanceled(true); // Block the fluid placement this tick
+            ChunkHeatmap.recordDeferral(serverLevel, event.getPos());
+            if (FluidEventRecorder.isRecording()) {
+                FluidEventRecorder.recordFluidPlace(serverLevel, event.getPos(), event.getNewState(), FluidEventLog.DEFERRED);
+            }
             return;
         }
         
         // Track that we intercepted a Flowing Fluids operation
-        incrementLevelOps();
+        incrementLevelOps(serverLevel);
+        ChunkHeatmap.recordPlacement(serverLevel, event.getPos(), 0);
+        if (FluidEventRecorder.isRecording()) {
+            FluidEventRecorder.recordFluidPlace(serverLevel, event.getPos(), event.getNewState(), FluidEventLog.ALLOWED);
+        }
     }
     
     /**
@@ -152,119 +207,255 @@ public class FlowingFluidsFixes {
     @SubscribeEvent
     public void onServerStarting(ServerStartingEvent event) {
         // Clear all tracking data
-        chunkFluids.clear();
-        playerChunks.clear();
-        totalFluidEvents.set(0);
-        skippedFluidEvents.set(0);
-        eventsThisTick.set(0);
-        tickCount.set(0);
-        totalTickTimeNanos = 0;
+        ChunkFluidHistory.clearAll();
+        BiomeOptimization.clearCaches();
+        InfiniteSourceCache.clearAll();
+        FluidStateCache.clearAll();
+        FluidNeighborBatch.clearAll();
+        SleepingSections.clearAll();
+        LevelingAdmission.clearAll();
+        ChunkHeatmap.clearAll();
+        PlayerProximityIndex.clear();
+        FluidPlacementBacklog.clearAll();
+        FluidSettlingBacklog.clearAll();
+        LevelThrottleState.clearAll();
+        totalFluidEvents.reset();
+        skippedFluidEvents.reset();
+        tickCount = 0;
+        tickTimes.reset();
+        admission.reset();
         
         // SAFETY: Enable caching only after all mods have finished initializing
         allowCaching = true;
+        publishSnapshot(event.getServer().getTickCount());
         System.out.println("[FlowingFluidsFixes] Systems enabled - simplified optimization active");
+        
+        // RECORDING - opt-in capture of this session's fluid events for replay
+        if (ConfigManager.isRecordFluidEvents()) {
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            FluidEventRecorder.start(Paths.get(MOD_ID, "fluid-events-" + stamp + ".fflog"));
+        }
     }
     
     /**
-     * SERVER TICK HANDLER - MSPT monitoring and player chunk updates
+     * COMMAND REGISTRATION - /ffix admin command
+     */
+    @SubscribeEvent
+    public void onRegisterCommands(RegisterCommandsEvent event) {
+        FluidStatsCommand.register(event.getDispatcher());
+    }
+    
+    /**
+     * SERVER STOP HANDLER - hand held fluid ticks back before the final save, finish any fluid event recording
+     */
+    @SubscribeEvent
+    public void onServerStopping(ServerStoppingEvent event) {
+        for (ServerLevel level : event.getServer().getAllLevels()) {
+            FluidSettlingBacklog.clearLevel(level);
+        }
+        FluidEventRecorder.stop();
+    }
+    
+    /**
+     * SERVER TICK HANDLER - MSPT monitoring and deferred work
      */
     @SubscribeEvent
     public void onServerTick(final TickEvent.ServerTickEvent event) {
-        if (event.phase == TickEvent.Phase.END) {
-            // Update MSPT tracking
-            updateMSPT();
+        if (event.phase == TickEvent.Phase.START) {
+            tickStartNanos = System.nanoTime();
+            ThrottleSnapshot throttle = snapshot;
+            
+            // TICK BOUNDARY - reset per-dimension counters and split the fluid budget
+            long totalBudget = FluidTickBudget.sizeBudget(ConfigManager.getFluidTickBudgetNanos(), throttle.mspt);
+            LevelThrottleState.startServerTick(event.getServer().getAllLevels(), totalBudget, throttle.mspt, EMERGENCY_MSPT);
+            FluidStateCache.startTick();
+            LevelingAdmission.startTick(throttle.mspt);
+            FluidTickLod.updateTiers(event.getServer().getPlayerList().getSimulationDistance(), throttle.tailMSPT);
+        } else if (event.phase == TickEvent.Phase.END) {
+            // Apply deferred fluid placements within the tick budget, then settle new chunks with what is left
+            FluidPlacementBacklog.drainAll(event.getServer().getAllLevels());
+            FluidSettlingBacklog.drainAll(event.getServer().getAllLevels(), snapshot.tailMSPT);
+            FluidNeighborBatch.flushAll(event.getServer().getAllLevels());
+            ChunkHeatmap.endTick(event.getServer().getAllLevels());
             
-            // Update player positions every 5 seconds (100 ticks)
-            if (tickCount.get() % 100 == 0) {
-                updatePlayerChunks(event.getServer());
+            // Update MSPT tracking after the deferred work, so the tick time includes its cost,
+            // and publish the state the next tick decides on
+            updateMSPT();
+            updateStartupStatus();
+            publishSnapshot(event.getServer().getTickCount());
+            FluidEventRecorder.recordTick(event.getServer().getTickCount(), cachedMSPT);
+        }
+    }
+    
+    /**
+     * LEVEL TICK HANDLER - per-dimension tick time and fluid load
+     */
+    @SubscribeEvent
+    public void onLevelTick(final TickEvent.LevelTickEvent event) {
+        if (event.level instanceof ServerLevel serverLevel) {
+            if (event.phase == TickEvent.Phase.START) {
+                LevelThrottleState.get(serverLevel).startLevelTick();
+            } else {
+                // Fluid blocks next to Flowing Fluids writes are notified once, at the end of the level tick
+                FluidNeighborBatch.flush(serverLevel);
+                LevelThrottleState.get(serverLevel).endLevelTick();
             }
         }
     }
     
+    /**
+     * PLAYER TRACKING - move a player's fluid radius when it crosses a chunk boundary
+     */
+    @SubscribeEvent
+    public void onEnteringSection(EntityEvent.EnteringSection event) {
+        if (event.getEntity() instanceof ServerPlayer player && event.didChunkChange()) {
+            long newSection = event.getPackedNewPos();
+            PlayerProximityIndex.moveTo(player.getUUID(), player.level().dimension(),
+                                        SectionPos.x(newSection), SectionPos.z(newSection));
+        }
+    }
+    
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            updatePlayerChunks(player);
+        }
+    }
+    
+    @SubscribeEvent
+    public void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            updatePlayerChunks(player);
+        }
+    }
+    
+    @SubscribeEvent
+    public void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            updatePlayerChunks(player);
+        }
+    }
+    
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        PlayerProximityIndex.remove(event.getEntity().getUUID());
+    }
+    
+    /**
+     * LEVEL UNLOAD HANDLER - drop deferred work for unloading dimensions, hand held fluid ticks back
+     */
+    @SubscribeEvent
+    public void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            FluidPlacementBacklog.clearLevel(serverLevel);
+            ChunkFluidHistory.clearLevel(serverLevel);
+            BiomeOptimization.clearLevel(serverLevel);
+            InfiniteSourceCache.clearLevel(serverLevel);
+            FluidStateCache.clearLevel(serverLevel);
+            FluidNeighborBatch.clearLevel(serverLevel);
+            SleepingSections.clearLevel(serverLevel);
+            LevelingAdmission.clearLevel(serverLevel);
+            ChunkHeatmap.clearLevel(serverLevel);
+            FluidSettlingBacklog.clearLevel(serverLevel);
+            LevelThrottleState.remove(serverLevel);
+        }
+    }
+    
+    /**
+     * CHUNK UNLOAD HANDLER - evict per-chunk fluid history and caches
+     */
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            ChunkPos chunkPos = event.getChunk().getPos();
+            ChunkFluidHistory.evictChunk(serverLevel, chunkPos.toLong());
+            BiomeOptimization.evictChunk(serverLevel, chunkPos.toLong());
+            InfiniteSourceCache.evictChunk(serverLevel, chunkPos.toLong());
+            SleepingSections.evictChunk(serverLevel, chunkPos.toLong());
+            LevelingAdmission.evictChunk(serverLevel, chunkPos.toLong());
+            ChunkHeatmap.evictChunk(serverLevel, chunkPos.toLong());
+            FluidSettlingBacklog.evictChunk(serverLevel, chunkPos.toLong());
+        }
+    }
+    
+    /**
+     * CHUNK LOAD HANDLER - hold the post-generation fluid burst of new terrain
+     */
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        if (event.isNewChunk() && event.getLevel() instanceof ServerLevel serverLevel) {
+            FluidSettlingBacklog.onChunkGenerated(serverLevel, event.getChunk().getPos().toLong());
+        }
+    }
+    
     /**
      * SPATIAL PARTITIONING - Check if player is in nearby chunks
-     * Replaces worldwide player scans with chunk-based checking
+     * At most two lookups in the precomputed per-dimension ring sets; far chunks
+     * are left to FluidTickLod's settle pass
      */
-    private static boolean isPlayerInNearbyChunk(ServerLevel level, BlockPos pos) {
-        if (!allowCaching) {
+    private static boolean isPlayerInNearbyChunk(ThrottleSnapshot throttle, ServerLevel level, BlockPos pos) {
+        if (!throttle.cachingAllowed) {
             return true; // Default to true during initialization
         }
         
-        // Use level parameter to avoid warning
         if (level == null) {
             return false;
         }
         
-        ChunkPos fluidChunk = new ChunkPos(pos);
-        int chunkDistance = MAX_FLUID_DISTANCE;
-        
-        // Check chunks in range around fluid
-        for (int dx = -chunkDistance; dx <= chunkDistance; dx++) {
-            for (int dz = -chunkDistance; dz <= chunkDistance; dz++) {
-                ChunkPos checkChunk = new ChunkPos(fluidChunk.x + dx, fluidChunk.z + dz);
-                String chunkKey = checkChunk.x + "," + checkChunk.z;
-                List<Player> players = playerChunks.get(chunkKey);
-                
-                if (players != null && !players.isEmpty()) {
-                    return true; // Player found in nearby chunk
-                }
-            }
-        }
-        
-        return false; // No players nearby
+        return FluidTickLod.tier(level, pos) != FluidTickLod.FAR;
     }
     
     /**
      * SPATIAL PARTITIONING - Add fluid to chunk tracking
      */
-    private static void addToChunkTracking(BlockPos pos) {
-        if (!allowCaching) {
+    private static void addToChunkTracking(ThrottleSnapshot throttle, ServerLevel level, BlockPos pos) {
+        if (!throttle.cachingAllowed) {
             return;
         }
         
-        ChunkPos chunk = new ChunkPos(pos);
-        String chunkKey = chunk.x + "," + chunk.z;
-        chunkFluids.computeIfAbsent(chunkKey, k -> new ArrayList<>()).add(pos.immutable());
-        
-        // Limit tracking to prevent memory issues
-        List<BlockPos> fluids = chunkFluids.get(chunkKey);
-        if (fluids.size() > 100) {
-            fluids.remove(0); // Remove oldest entry
-        }
+        // Fixed-size ring buffer per chunk - oldest entry is overwritten in O(1)
+        ChunkFluidHistory.record(level, pos);
     }
     
     /**
-     * SIMPLE MSPT TRACKING - minimal overhead
+     * SIMPLE MSPT TRACKING - nanosecond tick busy time, EWMA and tail percentiles
      */
     public static void updateMSPT() {
         long currentTime = System.nanoTime();
-        if (lastTickTime != 0) {
-            long tickDuration = currentTime - lastTickTime;
-            totalTickTimeNanos += tickDuration / 1_000_000; // Convert to milliseconds
-            int ticks = tickCount.incrementAndGet();
+        if (tickStartNanos != 0) {
+            // Busy time of this tick (START to END, including the END-phase drains), not the wall-clock gap between ticks
+            tickTimes.record(currentTime - tickStartNanos);
+            cachedMSPT = tickTimes.getEwmaMillis();
+            tailMSPT = Math.max(cachedMSPT, tickTimes.getP95Millis());
+            admission.update(ConfigManager.getMsptSetpoint(), cachedMSPT);
+            tickCount++;
             
-            // Update every 2 seconds
+            // JFR window summary every 2 seconds
             if (System.currentTimeMillis() - lastMSPTCheck > 2000) {
-                if (ticks > 0) {
-                    double averageMSPT = totalTickTimeNanos / (double) ticks;
-                    cachedMSPT = averageMSPT;
-                    
-                    // Reset counters for next period
-                    totalTickTimeNanos = 0;
-                    tickCount.set(0);
-                    levelOpsThisTick.set(0); // Reset level operations counter
-                }
+                FluidFlightRecorder.msptWindow(tickCount, tickTimes);
+                tickCount = 0;
                 lastMSPTCheck = System.currentTimeMillis();
             }
         }
-        lastTickTime = currentTime;
-        
-        // Reset per-tick counter
-        eventsThisTick.set(0);
     }
     
     /**
-     * STARTUP STATUS MANAGEMENT
+     * PUBLISH - one immutable throttle state per tick, a single volatile store
+     */
+    private static void publishSnapshot(long tick) {
+        snapshot = new ThrottleSnapshot(tick, admission.getRate(), cachedMSPT, tailMSPT,
+                                        cachedMSPT > EMERGENCY_MSPT, isInStartup, allowCaching);
+    }
+    
+    /**
+     * Current throttle snapshot - read it once and use its fields for a whole decision
+     */
+    public static ThrottleSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * STARTUP STATUS MANAGEMENT - server thread, once per tick
      */
     private static void updateStartupStatus() {
         if (isInStartup && worldLoadTime > 0) {
@@ -277,132 +468,159 @@ public class FlowingFluidsFixes {
     }
     
     /**
-     * Update player chunk positions for spatial partitioning
+     * Update one player's chunk position for spatial partitioning
      */
-    private static void updatePlayerChunks(MinecraftServer server) {
-        if (!allowCaching || server == null) {
-            return;
-        }
-        
-        // Clear old player positions
-        playerChunks.clear();
-        
-        // Update player positions for all levels
-        for (ServerLevel level : server.getAllLevels()) {
-            for (Player player : level.players()) {
-                ChunkPos playerChunk = new ChunkPos(player.blockPosition());
-                String chunkKey = playerChunk.x + "," + playerChunk.z;
-                
-                // Add player to chunk tracking
-                playerChunks.computeIfAbsent(chunkKey, k -> new ArrayList<>()).add(player);
-            }
-        }
+    private static void updatePlayerChunks(ServerPlayer player) {
+        // Only the chunks entering or leaving the player's radius are touched
+        PlayerProximityIndex.update(player);
     }
     
     /**
      * ENTITY THROTTLING - Reduce entity AI processing during high MSPT
+     * Skips a share of entities that grows with the admission controller's pressure
      */
     public static boolean shouldProcessEntity() {
-        // Always allow during emergency mode to prevent issues
-        if (cachedMSPT > EMERGENCY_MSPT) {
+        ThrottleSnapshot throttle = snapshot;
+        if (throttle.emergency) {
             return false; // Skip all entities in emergency
         }
-        
-        // Throttle entities during high MSPT
-        if (cachedMSPT > ENTITY_THROTTLE_MSPT) {
-            return tickCount.get() % ENTITY_SKIP_RATE != 0; // Skip every 2nd entity
-        }
-        
-        // More aggressive during startup
-        if (isInStartup && cachedMSPT > STARTUP_MSPT) {
-            return tickCount.get() % (ENTITY_SKIP_RATE + 1) != 0; // Skip every 3rd entity
+        return entitySpreader.admit(AdmissionController.scaledRate(throttle.admissionRate, ENTITY_MAX_SKIP));
+    }
+    
+    /**
+     * ENTITY THROTTLING - per dimension emergency flag, spread within the dimension
+     */
+    public static boolean shouldProcessEntity(ServerLevel level) {
+        ThrottleSnapshot throttle = snapshot;
+        LevelThrottleState state = LevelThrottleState.get(level);
+        if (state.isEmergency()) {
+            return false; // Skip all entities in emergency
         }
-        
-        return true; // Allow entity processing
+        return state.getEntitySpreader().admit(AdmissionController.scaledRate(throttle.admissionRate, ENTITY_MAX_SKIP));
     }
     
     /**
      * LEVEL OPERATION THROTTLING - Critical for reducing 4,380 level operations
+     * Server-wide view; fluid paths use the per-dimension overload
      */
     public static boolean shouldAllowLevelOperation() {
-        // Always allow during emergency mode to prevent issues
-        if (cachedMSPT > EMERGENCY_MSPT) {
+        ThrottleSnapshot throttle = snapshot;
+        if (throttle.emergency) {
             return false; // Skip all level operations in emergency
         }
-        
-        // Hard limit per tick
-        if (levelOpsThisTick.get() >= MAX_LEVEL_OPERATIONS_PER_TICK) {
-            return false; // Hard limit reached
+        return levelOpSpreader.admit(throttle.admissionRate);
+    }
+    
+    /**
+     * LEVEL OPERATION THROTTLING - per dimension budget, emergency flag and admission rate
+     */
+    public static boolean shouldAllowLevelOperation(ServerLevel level) {
+        ThrottleSnapshot throttle = snapshot;
+        LevelThrottleState state = LevelThrottleState.get(level);
+        if (state.isEmergency()) {
+            return FluidFlightRecorder.levelOperation(state, false, "emergency"); // Skip all level operations in this dimension
         }
         
-        // Throttle during high MSPT
-        if (cachedMSPT > LEVEL_THROTTLE_MSPT) {
-            return tickCount.get() % 3 != 0; // Skip 66% of level operations
+        // Time budget per tick
+        if (!state.getBudget().canAdmit()) {
+            return FluidFlightRecorder.levelOperation(state, false, "budget"); // This dimension's budget is spent
         }
         
-        // More aggressive during startup
-        if (isInStartup && cachedMSPT > STARTUP_MSPT) {
-            return tickCount.get() % 4 != 0; // Skip 75% of level operations
+        // Admission rate from the MSPT controller, spread evenly over the tick
+        if (!state.getLevelOpSpreader().admit(throttle.admissionRate)) {
+            return FluidFlightRecorder.levelOperation(state, false, "throttled");
         }
         
-        return true; // Allow level operation
+        return FluidFlightRecorder.levelOperation(state, true, "allowed");
     }
     
     /**
      * Increment level operations counter for tracking
      */
-    public static void incrementLevelOps() {
-        levelOpsThisTick.incrementAndGet();
+    public static void incrementLevelOps(ServerLevel level) {
+        LevelThrottleState.get(level).countLevelOp();
     }
+    
+    /**
+     * Replace the expected cost of the last level operation with its measured cost
+     */
+    public static void recordLevelOpCost(ServerLevel level, long nanos) {
+        LevelThrottleState.get(level).getBudget().recordCost(nanos);
+    }
+    
+    /**
+     * CHUNK THROTTLING - Skips a share of chunks that grows with the controller's pressure
+     */
     public static boolean shouldProcessChunk() {
-        // Always allow during emergency mode to prevent issues
-        if (cachedMSPT > EMERGENCY_MSPT) {
+        ThrottleSnapshot throttle = snapshot;
+        if (throttle.emergency) {
             return false; // Skip all chunks in emergency
         }
-        
-        // Throttle chunks during high MSPT
-        if (cachedMSPT > CHUNK_THROTTLE_MSPT) {
-            return tickCount.get() % CHUNK_SKIP_RATE != 0; // Skip every 3rd chunk
-        }
-        
-        // More aggressive during startup
-        if (isInStartup && cachedMSPT > STARTUP_MSPT) {
-            return tickCount.get() % (CHUNK_SKIP_RATE + 1) != 0; // Skip every 4th chunk
+        return chunkSpreader.admit(AdmissionController.scaledRate(throttle.admissionRate, CHUNK_MAX_SKIP));
+    }
+    
+    /**
+     * CHUNK THROTTLING - per dimension emergency flag, spread within the dimension
+     */
+    public static boolean shouldProcessChunk(ServerLevel level) {
+        ThrottleSnapshot throttle = snapshot;
+        LevelThrottleState state = LevelThrottleState.get(level);
+        if (state.isEmergency()) {
+            return false; // Skip all chunks in emergency
         }
-        
-        return true; // Allow chunk processing
+        return state.getChunkSpreader().admit(AdmissionController.scaledRate(throttle.admissionRate, CHUNK_MAX_SKIP));
     }
     
     // Simple MSPT check
     public static double getMSPT() {
-        return cachedMSPT;
+        return snapshot.mspt;
+    }
+    
+    // Tail latency used by the throttle thresholds
+    public static double getTailMSPT() {
+        return snapshot.tailMSPT;
+    }
+    
+    public static TickTimeRecorder getTickTimes() {
+        return tickTimes;
     }
     
     // Simple emergency check
     public static boolean isEmergencyMode() {
-        return cachedMSPT > EMERGENCY_MSPT;
+        return snapshot.emergency;
+    }
+    
+    public static boolean isEmergencyMode(ServerLevel level) {
+        return LevelThrottleState.get(level).isEmergency();
     }
     
     // Simple statistics
     public static String getStats() {
-        int total = totalFluidEvents.get();
-        int skipped = skippedFluidEvents.get();
+        ThrottleSnapshot throttle = snapshot;
+        long total = totalFluidEvents.sum();
+        long skipped = skippedFluidEvents.sum();
         double skipRate = total > 0 ? (skipped * 100.0 / total) : 0.0;
         
-        // Add entity, chunk, and level status
-        String entityStatus = shouldProcessEntity() ? "ACTIVE" : "THROTTLED";
-        String chunkStatus = shouldProcessChunk() ? "ACTIVE" : "THROTTLED";
-        String levelStatus = shouldAllowLevelOperation() ? "ACTIVE" : "THROTTLED";
-        String startupStatus = isInStartup ? "STARTUP" : "NORMAL";
-        int levelOps = levelOpsThisTick.get();
+        // Add entity, chunk, and level admission - all from the same snapshot
+        double levelRate = throttle.emergency ? 0.0 : throttle.admissionRate;
+        double entityRate = throttle.emergency ? 0.0 : AdmissionController.scaledRate(throttle.admissionRate, ENTITY_MAX_SKIP);
+        double chunkRate = throttle.emergency ? 0.0 : AdmissionController.scaledRate(throttle.admissionRate, CHUNK_MAX_SKIP);
+        String startupStatus = throttle.startup ? "STARTUP" : "NORMAL";
+        long levelOps = 0;
+        StringBuilder dimensions = new StringBuilder();
+        for (LevelThrottleState state : LevelThrottleState.all()) {
+            levelOps += state.getLevelOpsThisTick();
+            dimensions.append(" | ").append(state.getStats());
+        }
         
-        return String.format("Events: %d total, %d skipped (%.1f%%), MSPT: %.1f | Entity: %s, Chunk: %s, Level: %s (%d/tick), Mode: %s", 
-                           total, skipped, skipRate, cachedMSPT, entityStatus, chunkStatus, levelStatus, levelOps, startupStatus);
+        return String.format("Events: %d total, %d skipped (%.1f%%), MSPT: %.1f | Entity: %.0f%%, Chunk: %.0f%%, Level: %.0f%% (%d/tick), Mode: %s | %s | %s", 
+                           total, skipped, skipRate, throttle.mspt, entityRate * 100.0, chunkRate * 100.0, levelRate * 100.0, levelOps, startupStatus,
+                           admission.getStats(), FluidPlacementBacklog.getStats()) + " | " + InfiniteSourceCache.getStats() + " | " + FluidStateCache.getStats() + " | " + FluidNeighborBatch.getStats() + " | " + SleepingSections.getStats() + " | " + LevelingAdmission.getStats() + " | " + ChunkHeatmap.getStats() + " | " + FluidTickLod.getStats() + " | " + FluidSettlingBacklog.getStats() + " | " + PooledPositions.getStats() + " | " + FluidEventRecorder.getStats() + " | " + tickTimes.getStats() + dimensions;
     }
     
     // Compatibility methods for other systems
     public static boolean shouldProcessFluid(ServerLevel level, BlockPos pos) {
-        return isPlayerInNearbyChunk(level, pos) && cachedMSPT < EMERGENCY_MSPT;
+        return isPlayerInNearbyChunk(snapshot, level, pos) && !isEmergencyMode(level);
     }
     
     public static boolean shouldSkipBlockEntityTick(Object blockEntity) {
@@ -419,11 +637,20 @@ public class FlowingFluidsFixes {
     }
     
     public static void resetStats() {
-        totalFluidEvents.set(0);
-        skippedFluidEvents.set(0);
-        eventsThisTick.set(0);
-        tickCount.set(0);
-        totalTickTimeNanos = 0;
+        totalFluidEvents.reset();
+        skippedFluidEvents.reset();
+        tickTimes.reset();
+        FluidPlacementBacklog.resetStats();
+        InfiniteSourceCache.resetStats();
+        FluidStateCache.resetStats();
+        FluidNeighborBatch.resetStats();
+        SleepingSections.resetStats();
+        LevelingAdmission.resetStats();
+        ChunkHeatmap.resetStats();
+        FluidTickLod.resetStats();
+        FluidSettlingBacklog.resetStats();
+        PooledPositions.resetStats();
+        FluidEventRecorder.resetStats();
     }
     
     public static boolean checkParticleSpawn() {
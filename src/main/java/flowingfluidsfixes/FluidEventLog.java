@@ -0,0 +1,135 @@
+package flowingfluidsfixes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FLUID EVENT LOG - binary format and replay of recorded fluid event streams
+ *
+ * A log is a 32-byte header followed by fixed 24-byte records:
+ *   type (1) | dimension (1) | decision (1) | reserved (1) | state id (4) | packed pos (8) | game time (8)
+ *
+ * TICK records carry the server tick number in the game time field and the tick
+ * MSPT as float bits in the state id field. DIMENSION records carry the name length
+ * in the state id field and are followed by the UTF-8 name, padded to whole records.
+ * Records never cross a REGION_SIZE boundary; all-zero records pad region ends. The
+ * header holds the number of data bytes written, updated at the end of every tick,
+ * so a log cut short by a crash is read up to its last completed tick.
+ *
+ * No Minecraft classes here, so the headless tools can read logs too.
+ */
+public class FluidEventLog {
+    // FORMAT
+    public static final long MAGIC = 0x46464C4F47303031L; // "FFLOG001"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 24;
+    public static final long REGION_SIZE = (long) RECORD_SIZE * (1 << 21); // 48MB of records per mapping
+    static final int DATA_LENGTH_OFFSET = 16;
+
+    // RECORD TYPES
+    public static final byte TYPE_DIMENSION = 1;
+    public static final byte TYPE_TICK = 2;
+    public static final byte TYPE_NEIGHBOR_NOTIFY = 3;
+    public static final byte TYPE_FLUID_PLACE = 4;
+
+    // THROTTLE DECISIONS
+    public static final byte ALLOWED = 0;
+    public static final byte SKIPPED_STARTUP = 1;
+    public static final byte SKIPPED_EMERGENCY = 2;
+    public static final byte SKIPPED_BUDGET = 3;
+    public static final byte SKIPPED_FAR = 4;
+    public static final byte DEFERRED = 5;
+
+    private static final String[] DECISION_NAMES = {"allowed", "skipped-startup", "skipped-emergency", "skipped-budget", "skipped-far", "deferred"};
+
+    private FluidEventLog() {
+    }
+
+    /**
+     * Receives the records of a log in the order they were written
+     */
+    public interface Listener {
+        default void onDimension(int dimension, String name) {
+        }
+
+        default void onTick(long tick, float mspt) {
+        }
+
+        void onEvent(byte type, int dimension, long pos, int stateId, byte decision, long gameTime);
+    }
+
+    public static String decisionName(int decision) {
+        return decision >= 0 && decision < DECISION_NAMES.length ? DECISION_NAMES[decision] : "unknown-" + decision;
+    }
+
+    static void writeHeader(ByteBuffer header, long dataLength) {
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, MAGIC);
+        header.putInt(8, VERSION);
+        header.putInt(12, RECORD_SIZE);
+        header.putLong(DATA_LENGTH_OFFSET, dataLength);
+        header.putLong(24, 0L);
+    }
+
+    /**
+     * REPLAY - feed every record of a log to a listener
+     *
+     * @return number of event records replayed
+     */
+    public static long replay(Path file, Listener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a fluid event log: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != MAGIC || header.getInt(12) != RECORD_SIZE) {
+                throw new IOException("Not a fluid event log: " + file);
+            }
+            long dataLength = Math.min(header.getLong(DATA_LENGTH_OFFSET), channel.size() - HEADER_SIZE);
+
+            long events = 0;
+            long offset = 0;
+            while (offset < dataLength) {
+                // Same regions the recorder wrote, so huge logs don't need one mapping
+                long window = Math.min(dataLength - offset, REGION_SIZE);
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset, window);
+                data.order(ByteOrder.LITTLE_ENDIAN);
+                while (data.remaining() >= RECORD_SIZE) {
+                    byte type = data.get();
+                    int dimension = data.get() & 0xFF;
+                    byte decision = data.get();
+                    data.get();
+                    int stateId = data.getInt();
+                    long pos = data.getLong();
+                    long gameTime = data.getLong();
+
+                    if (type == TYPE_DIMENSION) {
+                        int padded = (stateId + RECORD_SIZE - 1) / RECORD_SIZE * RECORD_SIZE;
+                        if (padded > data.remaining()) {
+                            throw new IOException("Dimension name crosses a region in " + file);
+                        }
+                        byte[] name = new byte[stateId];
+                        data.get(name);
+                        data.position(data.position() + padded - stateId);
+                        listener.onDimension(dimension, new String(name, StandardCharsets.UTF_8));
+                    } else if (type == TYPE_TICK) {
+                        listener.onTick(gameTime, Float.intBitsToFloat(stateId));
+                    } else if (type != 0) {
+                        listener.onEvent(type, dimension, pos, stateId, decision, gameTime);
+                        events++;
+                    }
+                }
+                offset += window;
+            }
+            return events;
+        }
+    }
+}
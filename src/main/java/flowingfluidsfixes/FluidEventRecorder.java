@@ -0,0 +1,241 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FLUID EVENT RECORDER - opt-in capture of fluid events and throttle decisions
+ *
+ * Writes NeighborNotify and FluidPlaceBlock events, each with the throttle decision
+ * taken for it, plus one record per server tick, into a FluidEventLog. Records are
+ * put straight into a memory-mapped region of the log file, so recording costs a few
+ * buffer writes per event and the OS flushes pages in the background. The header's
+ * data length is published at the end of every tick, so a crash loses at most the
+ * tick in progress, and the file is cut down to the data written when recording stops.
+ *
+ * Recording is owned by the server thread. Events fired on other threads are counted
+ * as dropped instead of being written.
+ */
+public class FluidEventRecorder {
+    private static volatile boolean recording = false;
+    private static Thread recordingThread = null;
+
+    private static FileChannel channel;
+    private static MappedByteBuffer header;
+    private static MappedByteBuffer region;
+    private static long regionStart;
+    private static Path recordingFile;
+    private static final Object2IntOpenHashMap<ResourceKey<Level>> DIMENSIONS = new Object2IntOpenHashMap<>();
+
+    // STATISTICS
+    private static final AtomicLong recordedEvents = new AtomicLong(0);
+    private static final AtomicLong droppedEvents = new AtomicLong(0);
+
+    private FluidEventRecorder() {
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Start recording into a new log file, replacing any recording in progress
+     */
+    public static synchronized void start(Path file) {
+        stop();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FluidEventLog.HEADER_SIZE);
+            FluidEventLog.writeHeader(header, 0);
+            regionStart = 0;
+            mapRegion();
+            DIMENSIONS.clear();
+            recordingFile = file;
+            recordingThread = Thread.currentThread();
+            recording = true;
+            System.out.println("[FlowingFluidsFixes] Recording fluid events to " + file);
+        } catch (IOException e) {
+            System.out.println("[FlowingFluidsFixes] Could not start fluid event recording: " + e.getMessage());
+            closeChannel();
+        }
+    }
+
+    /**
+     * Stop recording and make the log complete on disk, no longer than its data
+     */
+    public static synchronized void stop() {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+        recordingThread = null;
+        long length = writtenBytes();
+        header.putLong(FluidEventLog.DATA_LENGTH_OFFSET, length);
+        region.force();
+        header.force();
+        try {
+            channel.truncate(FluidEventLog.HEADER_SIZE + length);
+        } catch (IOException e) {
+            // Some platforms refuse to shrink a mapped file; the header still bounds the data
+            System.out.println("[FlowingFluidsFixes] Could not trim fluid event log: " + e.getMessage());
+        }
+        closeChannel();
+        System.out.println("[FlowingFluidsFixes] Fluid event recording stopped: " + recordedEvents.get() + " events in " + recordingFile);
+    }
+
+    /**
+     * Record a NeighborNotify event and what the throttle did with it
+     */
+    public static void recordNeighborNotify(ServerLevel level, BlockPos pos, BlockState state, byte decision) {
+        recordEvent(FluidEventLog.TYPE_NEIGHBOR_NOTIFY, level, pos, state, decision);
+    }
+
+    /**
+     * Record a FluidPlaceBlock event and what the throttle did with it
+     */
+    public static void recordFluidPlace(ServerLevel level, BlockPos pos, BlockState newState, byte decision) {
+        recordEvent(FluidEventLog.TYPE_FLUID_PLACE, level, pos, newState, decision);
+    }
+
+    /**
+     * Record the end of a server tick with its MSPT, and publish the data length so far
+     */
+    public static void recordTick(long tick, double mspt) {
+        if (!recording || Thread.currentThread() != recordingThread) {
+            return;
+        }
+        if (ensureRoom(FluidEventLog.RECORD_SIZE)) {
+            putRecord(FluidEventLog.TYPE_TICK, 0, (byte) 0, Float.floatToIntBits((float) mspt), 0L, tick);
+            header.putLong(FluidEventLog.DATA_LENGTH_OFFSET, writtenBytes());
+        }
+    }
+
+    private static void recordEvent(byte type, ServerLevel level, BlockPos pos, BlockState state, byte decision) {
+        if (!recording) {
+            return;
+        }
+        if (Thread.currentThread() != recordingThread) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        int dimension = dimensionIndex(level);
+        if (dimension < 0 || !ensureRoom(FluidEventLog.RECORD_SIZE)) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        putRecord(type, dimension, decision, Block.getId(state), pos.asLong(), level.getGameTime());
+        recordedEvents.incrementAndGet();
+    }
+
+    private static void putRecord(byte type, int dimension, byte decision, int stateId, long pos, long gameTime) {
+        region.put(type);
+        region.put((byte) dimension);
+        region.put(decision);
+        region.put((byte) 0);
+        region.putInt(stateId);
+        region.putLong(pos);
+        region.putLong(gameTime);
+    }
+
+    /**
+     * Index of a dimension in this log, writing its name the first time it's seen
+     */
+    private static int dimensionIndex(ServerLevel level) {
+        ResourceKey<Level> key = level.dimension();
+        int index = DIMENSIONS.getOrDefault(key, -1);
+        if (index >= 0) {
+            return index;
+        }
+        if (DIMENSIONS.size() > 255) {
+            return -1; // One byte per record
+        }
+        byte[] name = key.location().toString().getBytes(StandardCharsets.UTF_8);
+        int padded = (name.length + FluidEventLog.RECORD_SIZE - 1) / FluidEventLog.RECORD_SIZE * FluidEventLog.RECORD_SIZE;
+        if (!ensureRoom(FluidEventLog.RECORD_SIZE + padded)) {
+            return -1;
+        }
+        index = DIMENSIONS.size();
+        putRecord(FluidEventLog.TYPE_DIMENSION, index, (byte) 0, name.length, 0L, 0L);
+        region.put(name);
+        region.position(region.position() + padded - name.length);
+        DIMENSIONS.put(key, index);
+        return index;
+    }
+
+    /**
+     * Make room in the current region, moving to the next one when it's full
+     */
+    private static boolean ensureRoom(int bytes) {
+        if (region.remaining() >= bytes) {
+            return true;
+        }
+        try {
+            // Rest of the region stays zero, which replay skips
+            regionStart += FluidEventLog.REGION_SIZE;
+            header.putLong(FluidEventLog.DATA_LENGTH_OFFSET, regionStart);
+            mapRegion();
+            return true;
+        } catch (IOException e) {
+            System.out.println("[FlowingFluidsFixes] Fluid event recording failed: " + e.getMessage());
+            recording = false;
+            recordingThread = null;
+            closeChannel(); // Header already covers every completed tick
+            return false;
+        }
+    }
+
+    private static void mapRegion() throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, FluidEventLog.HEADER_SIZE + regionStart, FluidEventLog.REGION_SIZE);
+        region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long writtenBytes() {
+        return regionStart + (region != null ? region.position() : 0);
+    }
+
+    private static void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // Nothing left to save
+        }
+        channel = null;
+        header = null;
+        region = null;
+    }
+
+    public static void resetStats() {
+        recordedEvents.set(0);
+        droppedEvents.set(0);
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        if (!recording) {
+            return "Recorder: off";
+        }
+        return String.format("Recorder: %d events, %.1f MB, %d dropped",
+                           recordedEvents.get(), writtenBytes() / 1048576.0, droppedEvents.get());
+    }
+}
@@ -0,0 +1,239 @@
+package flowingfluidsfixes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JFR EVENTS - fluid work in JDK Flight Recorder recordings
+ *
+ * Custom events for fluid tick batches, level operation and emergency decisions,
+ * backlog depth and MSPT window rollovers, so fluid stalls line up with GC and
+ * allocation data in the same recording. Defaults keep a continuous recording
+ * cheap: tick batches only above a 10ms threshold, per-operation decisions
+ * disabled, backlog depth once per second. A JFC profile or
+ * -XX:StartFlightRecording settings can lower the thresholds while investigating.
+ *
+ * When no recording enables an event, emitting it costs an isEnabled() check.
+ */
+public class FluidFlightRecorder {
+    private static final String CATEGORY = "Flowing Fluids Fixes";
+
+    private static boolean registered = false;
+
+    private FluidFlightRecorder() {
+    }
+
+    /**
+     * FLUID TICK BATCH - one dimension's level tick and the fluid work done in it
+     */
+    @Name("flowingfluidsfixes.FluidTickBatch")
+    @Label("Fluid Tick Batch")
+    @Category(CATEGORY)
+    @Description("Level tick of one dimension with the fluid ticks, events and level operations it ran")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    public static final class FluidTickBatchEvent extends Event {
+        @Label("Dimension")
+        public String dimension;
+
+        @Label("Fluid Ticks")
+        public long fluidTicks;
+
+        @Label("Fluid Events")
+        public long fluidEvents;
+
+        @Label("Level Operations")
+        public long levelOps;
+
+        @Label("Fluid Budget")
+        @Timespan(Timespan.NANOSECONDS)
+        public long budgetNanos;
+
+        @Label("Budget Spent")
+        @Timespan(Timespan.NANOSECONDS)
+        public long spentNanos;
+    }
+
+    /**
+     * LEVEL OPERATION DECISION - outcome of one shouldAllowLevelOperation call
+     */
+    @Name("flowingfluidsfixes.LevelOperationDecision")
+    @Label("Level Operation Decision")
+    @Category(CATEGORY)
+    @Description("Whether a fluid level operation was allowed, and why not")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class LevelOperationEvent extends Event {
+        @Label("Dimension")
+        public String dimension;
+
+        @Label("Allowed")
+        public boolean allowed;
+
+        @Label("Reason")
+        public String reason;
+
+        @Label("Tail MSPT")
+        public double tailMSPT;
+    }
+
+    /**
+     * EMERGENCY MODE - a dimension entering or leaving emergency mode
+     */
+    @Name("flowingfluidsfixes.EmergencyMode")
+    @Label("Emergency Mode")
+    @Category(CATEGORY)
+    @Description("A dimension entered or left fluid emergency mode")
+    @StackTrace(false)
+    public static final class EmergencyModeEvent extends Event {
+        @Label("Dimension")
+        public String dimension;
+
+        @Label("Emergency")
+        public boolean emergency;
+
+        @Label("Level MSPT")
+        public double levelMSPT;
+
+        @Label("Server MSPT")
+        public double serverMSPT;
+
+        @Label("Budget Share")
+        public double budgetShare;
+    }
+
+    /**
+     * BACKLOG DEPTH - deferred fluid placements per dimension, sampled periodically
+     */
+    @Name("flowingfluidsfixes.BacklogDepth")
+    @Label("Fluid Backlog Depth")
+    @Category(CATEGORY)
+    @Description("Deferred fluid placements and held post-generation fluid ticks waiting in one dimension")
+    @Period("1 s")
+    @StackTrace(false)
+    public static final class BacklogDepthEvent extends Event {
+        @Label("Dimension")
+        public String dimension;
+
+        @Label("Pending Placements")
+        public int pending;
+
+        @Label("Settling Ticks")
+        public int settling;
+    }
+
+    /**
+     * MSPT WINDOW - tick time summary at each MSPT window rollover
+     */
+    @Name("flowingfluidsfixes.MsptWindow")
+    @Label("MSPT Window")
+    @Category(CATEGORY)
+    @Description("Server tick time over the MSPT window that just closed")
+    @StackTrace(false)
+    public static final class MsptWindowEvent extends Event {
+        @Label("Ticks")
+        public int ticks;
+
+        @Label("EWMA MSPT")
+        public double ewmaMSPT;
+
+        @Label("P50 MSPT")
+        public double p50MSPT;
+
+        @Label("P95 MSPT")
+        public double p95MSPT;
+
+        @Label("P99 MSPT")
+        public double p99MSPT;
+
+        @Label("Max MSPT")
+        public double maxMSPT;
+    }
+
+    /**
+     * Register the periodic backlog event; safe to call more than once
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            FlightRecorder.addPeriodicEvent(BacklogDepthEvent.class, FluidFlightRecorder::emitBacklogDepth);
+            registered = true;
+        } catch (RuntimeException | LinkageError e) {
+            // JFR missing from this runtime - the other events are no-ops then
+            System.out.println("[FlowingFluidsFixes] JFR events unavailable: " + e.getMessage());
+        }
+    }
+
+    // Runs on the JFR periodic thread, so it only reads the backlogs' concurrent maps
+    private static void emitBacklogDepth() {
+        Map<ResourceKey<Level>, Integer> placements = FluidPlacementBacklog.getPendingCounts();
+        Map<ResourceKey<Level>, Integer> settling = FluidSettlingBacklog.getPendingCounts();
+        Set<ResourceKey<Level>> dimensions = new HashSet<>(placements.keySet());
+        dimensions.addAll(settling.keySet());
+        for (ResourceKey<Level> dimension : dimensions) {
+            BacklogDepthEvent event = new BacklogDepthEvent();
+            event.dimension = dimension.location().toString();
+            event.pending = placements.getOrDefault(dimension, 0);
+            event.settling = settling.getOrDefault(dimension, 0);
+            event.commit();
+        }
+    }
+
+    /**
+     * Record the outcome of a level operation decision and return it
+     */
+    public static boolean levelOperation(LevelThrottleState state, boolean allowed, String reason) {
+        LevelOperationEvent event = new LevelOperationEvent();
+        if (event.isEnabled()) {
+            event.dimension = state.getDimension().location().toString();
+            event.allowed = allowed;
+            event.reason = reason;
+            event.tailMSPT = state.getSnapshot().tailMSPT;
+            event.commit();
+        }
+        return allowed;
+    }
+
+    public static void emergencyMode(LevelThrottleState state, double serverMSPT) {
+        EmergencyModeEvent event = new EmergencyModeEvent();
+        if (event.isEnabled()) {
+            LevelThrottleState.Snapshot snapshot = state.getSnapshot();
+            event.dimension = state.getDimension().location().toString();
+            event.emergency = snapshot.emergency;
+            event.levelMSPT = snapshot.levelMSPT;
+            event.serverMSPT = serverMSPT;
+            event.budgetShare = snapshot.budgetShare;
+            event.commit();
+        }
+    }
+
+    public static void msptWindow(int ticks, TickTimeRecorder tickTimes) {
+        MsptWindowEvent event = new MsptWindowEvent();
+        if (event.isEnabled()) {
+            event.ticks = ticks;
+            event.ewmaMSPT = tickTimes.getEwmaMillis();
+            event.p50MSPT = tickTimes.getP50Millis();
+            event.p95MSPT = tickTimes.getP95Millis();
+            event.p99MSPT = tickTimes.getP99Millis();
+            event.maxMSPT = tickTimes.getMaxMillis();
+            event.commit();
+        }
+    }
+}
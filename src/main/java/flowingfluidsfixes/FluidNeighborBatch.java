@@ -0,0 +1,286 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.LiquidBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.event.ForgeEventFactory;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FLUID NEIGHBOR BATCH - coalesced neighbour updates between fluid blocks
+ *
+ * Every fluid amount change Flowing Fluids makes is a setBlock with neighbour updates,
+ * so a block that changes level several times in a tick notifies its six neighbours
+ * every time. Most of those neighbours are fluid blocks, and a fluid block reacts to
+ * a neighbour change only by checking its own position and scheduling a fluid tick,
+ * whichever neighbour changed and however often.
+ *
+ * While a Flowing Fluids tick runs, setBlock calls have UPDATE_NEIGHBORS stripped and
+ * the neighbour updates are sent from markAndNotifyBlock instead, at the point where
+ * vanilla sends them: the NeighborNotify event, then each neighbour in vanilla's
+ * update order with the replaced block as the source, then comparators, all before
+ * shape updates and onBlockStateChange. Only neighbours that are fluid blocks are held
+ * back, grouped by chunk section, and notified once each at the end of the level tick
+ * if they are still fluid blocks. Observers, redstone, comparators and event listeners
+ * keep seeing every write as it happens.
+ *
+ * The writes themselves are not batched: every setBlock still lands immediately, with
+ * its light, heightmap and client change work, because Flowing Fluids reads the new
+ * fluid amounts within the same tick.
+ *
+ * Server thread only.
+ */
+public class FluidNeighborBatch {
+    // PER-LEVEL BATCHES - fluid block -> first update for it, grouped by SectionPos.asLong, in update order
+    private static final Map<ResourceKey<Level>, Long2ObjectLinkedOpenHashMap<Long2ObjectLinkedOpenHashMap<Update>>> BATCHES = new HashMap<>();
+
+    // Same order as NeighborUpdater.UPDATE_ORDER
+    private static final Direction[] UPDATE_ORDER = {
+        Direction.WEST, Direction.EAST, Direction.DOWN, Direction.UP, Direction.NORTH, Direction.SOUTH
+    };
+
+    // BATCHING SCOPE - one frame per running fluid tick, true if it opened a scope; depth counts the true frames
+    private static final BooleanArrayList scopes = new BooleanArrayList();
+    private static int depth = 0;
+    private static Thread batchThread = null;
+
+    // OPEN WRITES - one frame per setBlock in progress inside the scope: its position and whether it was stripped
+    private static final LongArrayList openPositions = new LongArrayList();
+    private static final BooleanArrayList openStripped = new BooleanArrayList();
+
+    // STATISTICS
+    private static final AtomicLong strippedWrites = new AtomicLong(0);
+    private static final AtomicLong directUpdates = new AtomicLong(0);
+    private static final AtomicLong batchedUpdates = new AtomicLong(0);
+    private static final AtomicLong coalescedUpdates = new AtomicLong(0);
+
+    private FluidNeighborBatch() {
+    }
+
+    /**
+     * Enter a fluid tick. Every call must be matched by end(); with batch false, or
+     * with tick optimization off, the tick runs unbatched.
+     */
+    public static void begin(Level level, boolean batch) {
+        boolean entered = batch && level instanceof ServerLevel && ConfigManager.isTickOptimizationEnabled();
+        scopes.push(entered);
+        if (entered) {
+            depth++;
+            batchThread = Thread.currentThread();
+        }
+    }
+
+    /**
+     * Leave the fluid tick entered by the matching begin()
+     */
+    public static void end(Level level) {
+        if (!scopes.isEmpty() && scopes.popBoolean()) {
+            depth--;
+        }
+    }
+
+    /**
+     * Check if writes on this level are inside a batching scope
+     */
+    public static boolean shouldDefer(Level level) {
+        return depth > 0 && Thread.currentThread() == batchThread && level instanceof ServerLevel;
+    }
+
+    /**
+     * SETBLOCK HEAD - strip UPDATE_NEIGHBORS from a write inside the scope. Every call
+     * must be matched by afterWrite().
+     */
+    public static int beforeWrite(Level level, BlockPos pos, int flags) {
+        if (!shouldDefer(level)) {
+            return flags;
+        }
+        // Captured snapshots replay setBlock's notifications later with the flags they were taken with
+        boolean strip = (flags & Block.UPDATE_NEIGHBORS) != 0 && !level.captureBlockSnapshots;
+        openPositions.push(pos.asLong());
+        openStripped.push(strip);
+        return strip ? flags & ~Block.UPDATE_NEIGHBORS : flags;
+    }
+
+    /**
+     * MARKANDNOTIFYBLOCK HEAD - send the neighbour updates of a stripped write where
+     * setBlock would have sent them
+     *
+     * @param oldState the state the write replaced
+     * @param newState the state the write asked for; as in setBlock, nothing is notified
+     *                 if the block ended up as something else
+     */
+    public static void notifyWrite(Level level, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (!shouldDefer(level) || openStripped.isEmpty()) {
+            return;
+        }
+        // Only the setBlock that opened the frame, once; direct markAndNotifyBlock calls keep their own flags
+        int top = openStripped.size() - 1;
+        if (!openStripped.getBoolean(top) || openPositions.getLong(top) != pos.asLong()) {
+            return;
+        }
+        openStripped.set(top, false);
+        if (level.getBlockState(pos) != newState) {
+            return;
+        }
+        ServerLevel serverLevel = (ServerLevel) level;
+        Block oldBlock = oldState.getBlock();
+        strippedWrites.incrementAndGet();
+
+        if (!ForgeEventFactory.onNeighborNotify(serverLevel, pos, newState, EnumSet.allOf(Direction.class), false).isCanceled()) {
+            BlockPos source = pos.immutable(); // Queued updates keep the position
+            BlockPos.MutableBlockPos neighbor = PooledPositions.acquire();
+            try {
+                for (Direction direction : UPDATE_ORDER) {
+                    neighbor.setWithOffset(source, direction);
+                    if (serverLevel.getBlockState(neighbor).getBlock() instanceof LiquidBlock) {
+                        batch(serverLevel, neighbor, source, oldBlock);
+                    } else {
+                        serverLevel.neighborChanged(neighbor.immutable(), oldBlock, source);
+                        directUpdates.incrementAndGet();
+                    }
+                }
+            } finally {
+                PooledPositions.release(neighbor);
+            }
+        }
+
+        // Comparators after the neighbours, as in setBlock
+        if (newState.hasAnalogOutputSignal()) {
+            serverLevel.updateNeighbourForOutputSignal(pos.immutable(), newState.getBlock());
+        }
+    }
+
+    /**
+     * SETBLOCK RETURN - close the frame opened by beforeWrite()
+     */
+    public static void afterWrite(Level level) {
+        if (!shouldDefer(level) || openStripped.isEmpty()) {
+            return;
+        }
+        openStripped.popBoolean();
+        openPositions.popLong();
+    }
+
+    // One pending update per fluid block; the first source is kept, fluid blocks don't read it
+    private static void batch(ServerLevel level, BlockPos target, BlockPos source, Block sourceBlock) {
+        Long2ObjectLinkedOpenHashMap<Long2ObjectLinkedOpenHashMap<Update>> sections = BATCHES.computeIfAbsent(level.dimension(), k -> new Long2ObjectLinkedOpenHashMap<>());
+        long sectionKey = SectionPos.asLong(target.getX() >> 4, target.getY() >> 4, target.getZ() >> 4);
+        Long2ObjectLinkedOpenHashMap<Update> updates = sections.get(sectionKey);
+        if (updates == null) {
+            updates = new Long2ObjectLinkedOpenHashMap<>();
+            sections.put(sectionKey, updates);
+        }
+        long key = target.asLong();
+        if (updates.containsKey(key)) {
+            coalescedUpdates.incrementAndGet();
+            return;
+        }
+        updates.put(key, new Update(source.asLong(), sourceBlock));
+        batchedUpdates.incrementAndGet();
+    }
+
+    /**
+     * FLUSH - notify the batched fluid blocks of a level, once each
+     */
+    public static void flush(ServerLevel level) {
+        Long2ObjectLinkedOpenHashMap<Long2ObjectLinkedOpenHashMap<Update>> sections = BATCHES.remove(level.dimension());
+        if (sections == null || sections.isEmpty()) {
+            return;
+        }
+
+        BlockPos.MutableBlockPos target = PooledPositions.acquire();
+        try {
+            for (ObjectIterator<Long2ObjectLinkedOpenHashMap<Update>> sectionIt = sections.values().iterator(); sectionIt.hasNext(); ) {
+                for (Long2ObjectMap.Entry<Update> entry : sectionIt.next().long2ObjectEntrySet()) {
+                    target.set(entry.getLongKey());
+                    // A block that stopped being fluid since was placed, and got its updates, after the write
+                    if (!level.isLoaded(target) || !(level.getBlockState(target).getBlock() instanceof LiquidBlock)) {
+                        continue;
+                    }
+                    Update update = entry.getValue();
+                    level.neighborChanged(target.immutable(), update.sourceBlock, BlockPos.of(update.source));
+                }
+            }
+        } finally {
+            PooledPositions.release(target);
+        }
+    }
+
+    /**
+     * Flush every level with pending updates
+     */
+    public static void flushAll(Iterable<ServerLevel> levels) {
+        if (BATCHES.isEmpty()) {
+            return;
+        }
+        for (ServerLevel level : levels) {
+            flush(level);
+        }
+    }
+
+    public static int getPendingCount() {
+        int total = 0;
+        for (Long2ObjectLinkedOpenHashMap<Long2ObjectLinkedOpenHashMap<Update>> sections : BATCHES.values()) {
+            for (Long2ObjectLinkedOpenHashMap<Update> updates : sections.values()) {
+                total += updates.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Drop pending updates of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        BATCHES.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        BATCHES.clear();
+        openPositions.clear();
+        openStripped.clear();
+        scopes.clear();
+        depth = 0;
+    }
+
+    public static void resetStats() {
+        strippedWrites.set(0);
+        directUpdates.set(0);
+        batchedUpdates.set(0);
+        coalescedUpdates.set(0);
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        return String.format("Neighbour batch: %d writes, %d neighbours updated directly, %d fluid neighbours batched, %d duplicate updates saved",
+                           strippedWrites.get(), directUpdates.get(), batchedUpdates.get(), coalescedUpdates.get());
+    }
+
+    /**
+     * First source of a batched update and the block it replaced
+     */
+    private static class Update {
+        final long source;
+        final Block sourceBlock;
+
+        Update(long source, Block sourceBlock) {
+            this.source = source;
+            this.sourceBlock = sourceBlock;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DEFERRED FLUID PLACEMENTS - per-level backlog for throttled placements
+ *
+ * When level operations are throttled, fluid placements are queued here instead of
+ * being cancelled outright. The backlog is keyed by packed BlockPos so repeated
+ * placements at the same block collapse to the newest state, and it is drained in
+ * later ticks from whatever is left of the fluid tick budget. Heavy load delays flow
+ * instead of losing it.
+ */
+public class FluidPlacementBacklog {
+    // PER-LEVEL BACKLOGS - one queue per dimension
+    private static final Map<ResourceKey<Level>, FluidPlacementBacklog> BACKLOGS = new ConcurrentHashMap<>();
+
+    // CONFIGURATION
+    private static final int MAX_PENDING_PER_LEVEL = 65536; // hard memory bound per level
+
+    // STATISTICS
+    private static final AtomicLong deferredPlacements = new AtomicLong(0);
+    private static final AtomicLong appliedPlacements = new AtomicLong(0);
+    private static final AtomicLong stalePlacements = new AtomicLong(0);
+    private static final AtomicLong droppedPlacements = new AtomicLong(0);
+
+    // Insertion-ordered so the oldest deferred block is drained first
+    private final Long2ObjectLinkedOpenHashMap<PendingPlacement> pending = new Long2ObjectLinkedOpenHashMap<>();
+
+    private FluidPlacementBacklog() {
+    }
+
+    /**
+     * Queue a throttled placement. Returns false if the level backlog is full and the
+     * placement has to be dropped.
+     */
+    public static boolean defer(ServerLevel level, BlockPos pos, BlockState originalState, BlockState newState) {
+        FluidPlacementBacklog backlog = BACKLOGS.computeIfAbsent(level.dimension(), k -> new FluidPlacementBacklog());
+        synchronized (backlog) {
+            long key = pos.asLong();
+            PendingPlacement existing = backlog.pending.get(key);
+            if (existing != null) {
+                // Same block deferred again - keep queue position, take the newest state
+                existing.originalState = originalState;
+                existing.newState = newState;
+                deferredPlacements.incrementAndGet();
+                return true;
+            }
+
+            if (backlog.pending.size() >= MAX_PENDING_PER_LEVEL) {
+                droppedPlacements.incrementAndGet();
+                return false;
+            }
+
+            backlog.pending.put(key, new PendingPlacement(originalState, newState));
+            deferredPlacements.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Drain deferred placements for one level until the fluid tick budget runs out.
+     * Returns the number of placements applied.
+     */
+    public static int drain(ServerLevel level) {
+        FluidPlacementBacklog backlog = BACKLOGS.get(level.dimension());
+        if (backlog == null) {
+            return 0;
+        }
+
+        int applied = 0;
+        BlockPos.MutableBlockPos pos = PooledPositions.acquire();
+        try {
+            synchronized (backlog) {
+                while (!backlog.pending.isEmpty()) {
+                    if (!FlowingFluidsFixes.shouldAllowLevelOperation(level)) {
+                        break; // Throttled or budget spent - leave the rest for a later tick
+                    }
+
+                    long key = backlog.pending.firstLongKey();
+                    PendingPlacement placement = backlog.pending.removeFirst();
+                    pos.set(key);
+
+                    // Skip placements the world has moved past since they were deferred
+                    if (!level.isLoaded(pos) || level.getBlockState(pos) != placement.originalState) {
+                        stalePlacements.incrementAndGet();
+                        continue;
+                    }
+
+                    // Immutable copy - placing a liquid schedules a tick that keeps the position
+                    long start = System.nanoTime();
+                    level.setBlockAndUpdate(pos.immutable(), placement.newState);
+                    long nanos = System.nanoTime() - start;
+                    FlowingFluidsFixes.incrementLevelOps(level);
+                    FlowingFluidsFixes.recordLevelOpCost(level, nanos);
+                    ChunkHeatmap.recordPlacement(level, pos, nanos);
+                    appliedPlacements.incrementAndGet();
+                    applied++;
+                }
+            }
+        } finally {
+            PooledPositions.release(pos);
+        }
+        return applied;
+    }
+
+    /**
+     * Drain each level backlog from the remaining fluid budget of that level.
+     */
+    public static void drainAll(Iterable<ServerLevel> levels) {
+        if (BACKLOGS.isEmpty()) {
+            return;
+        }
+
+        for (ServerLevel level : levels) {
+            if (FlowingFluidsFixes.isEmergencyMode(level)) {
+                continue; // This dimension is struggling - keep its backlog
+            }
+            drain(level);
+        }
+    }
+
+    /**
+     * Get number of pending placements for a level
+     */
+    public static int getPendingCount(ServerLevel level) {
+        FluidPlacementBacklog backlog = BACKLOGS.get(level.dimension());
+        if (backlog == null) {
+            return 0;
+        }
+        synchronized (backlog) {
+            return backlog.pending.size();
+        }
+    }
+
+    /**
+     * Get number of pending placements of every level with a backlog
+     */
+    public static Map<ResourceKey<Level>, Integer> getPendingCounts() {
+        Map<ResourceKey<Level>, Integer> counts = new HashMap<>();
+        for (Map.Entry<ResourceKey<Level>, FluidPlacementBacklog> backlog : BACKLOGS.entrySet()) {
+            synchronized (backlog.getValue()) {
+                counts.put(backlog.getKey(), backlog.getValue().pending.size());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Get number of pending placements across all levels
+     */
+    public static int getTotalPendingCount() {
+        int total = 0;
+        for (FluidPlacementBacklog backlog : BACKLOGS.values()) {
+            synchronized (backlog) {
+                total += backlog.pending.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Drop the backlog of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        BACKLOGS.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        BACKLOGS.clear();
+    }
+
+    public static void resetStats() {
+        deferredPlacements.set(0);
+        appliedPlacements.set(0);
+        stalePlacements.set(0);
+        droppedPlacements.set(0);
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        return String.format("Backlog: %d pending, %d deferred, %d applied, %d stale, %d dropped",
+                           getTotalPendingCount(), deferredPlacements.get(), appliedPlacements.get(),
+                           stalePlacements.get(), droppedPlacements.get());
+    }
+
+    /**
+     * Newest deferred placement for one block
+     */
+    private static class PendingPlacement {
+        BlockState originalState;
+        BlockState newState;
+
+        PendingPlacement(BlockState originalState, BlockState newState) {
+            this.originalState = originalState;
+            this.newState = newState;
+        }
+    }
+}
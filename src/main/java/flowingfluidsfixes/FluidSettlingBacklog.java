@@ -0,0 +1,377 @@
+package flowingfluidsfixes;
+
+import flowingfluidsfixes.mixin.ServerLevelAccessor;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * POST-GENERATION SETTLING - per-chunk backlog for fluid ticks of new terrain
+ *
+ * Freshly generated chunks come with bursts of fluid ticks (vanilla post-gen ticks
+ * and Flowing Fluids' after-generation pass), mostly around aquifers and ocean
+ * edges, and they come due while the server is busy generating more chunks. Until
+ * a new chunk has settled, its fluid ticks are held here instead of running when
+ * due, one entry per block, and released at the end of later ticks from a budget
+ * of their own.
+ *
+ * FAST LANE - chunks a player is standing in or next to are drained first, so fluid
+ * the player can see keeps moving.
+ *
+ * BULK LANE - all other held chunks are drained round robin, a slice per chunk, from
+ * what the fast lane left of the budget, capped at a share that shrinks as the tick
+ * gets longer. Dimensions in emergency mode keep their bulk backlog.
+ *
+ * Held ticks are already out of the level's scheduler, so a chunk, level or server
+ * that unloads gets them scheduled back before it is saved.
+ *
+ * A chunk counts as settled once its backlog is empty and no new tick has been held
+ * for QUIET_TICKS, or once QUIET_TICKS have passed since generation without any tick
+ * held at all; after that its fluid ticks run normally again.
+ */
+public class FluidSettlingBacklog {
+    // PER-LEVEL BACKLOGS - one per dimension
+    private static final Map<ResourceKey<Level>, FluidSettlingBacklog> BACKLOGS = new ConcurrentHashMap<>();
+
+    // CONFIGURATION
+    private static final int MAX_PENDING_PER_LEVEL = 65536; // hard memory bound per level
+    private static final int CHUNK_SLICE = 64; // held ticks released per chunk visit in the bulk lane
+    private static final long QUIET_TICKS = 40; // a drained chunk settles after this long without new ticks
+    private static final double TARGET_TICK_MS = 45.0; // same tick target as FluidTickBudget
+    private static final double IDLE_TICK_MS = 10.0; // full bulk budget at or below this tick time
+    private static final double MIN_BULK_SHARE = 0.1; // settling never stops entirely
+
+    // DRAINING - set while a held tick runs, so it isn't held again
+    private static boolean draining = false;
+
+    // STATISTICS
+    private static final AtomicLong heldTicks = new AtomicLong(0);
+    private static final AtomicLong releasedTicks = new AtomicLong(0);
+    private static final AtomicLong fastLaneTicks = new AtomicLong(0);
+    private static final AtomicLong staleTicks = new AtomicLong(0);
+    private static final AtomicLong overflowTicks = new AtomicLong(0);
+    private static final AtomicLong settledChunks = new AtomicLong(0);
+
+    // Generated this session and not settled yet, chunk -> generation game time
+    private final Long2LongOpenHashMap freshChunks = new Long2LongOpenHashMap();
+    // Chunks with held ticks or waiting to settle, drained round robin from the front
+    private final Long2ObjectLinkedOpenHashMap<ChunkBacklog> chunks = new Long2ObjectLinkedOpenHashMap<>();
+    private int pendingTicks = 0;
+
+    private FluidSettlingBacklog() {
+    }
+
+    /**
+     * Mark a chunk that was just generated; its fluid ticks are held until it settles
+     */
+    public static void onChunkGenerated(ServerLevel level, long chunkKey) {
+        if (ConfigManager.getSettlingBudgetNanos() == 0) {
+            return;
+        }
+        FluidSettlingBacklog backlog = BACKLOGS.computeIfAbsent(level.dimension(), k -> new FluidSettlingBacklog());
+        synchronized (backlog) {
+            backlog.freshChunks.put(chunkKey, level.getGameTime());
+        }
+    }
+
+    /**
+     * HOT PATH - hold a due fluid tick if its chunk is still settling.
+     * Returns true if the tick was held and must not run now.
+     */
+    public static boolean hold(ServerLevel level, BlockPos pos, Fluid fluid) {
+        if (draining) {
+            return false;
+        }
+        FluidSettlingBacklog backlog = BACKLOGS.get(level.dimension());
+        if (backlog == null) {
+            return false;
+        }
+
+        long chunkKey = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+        synchronized (backlog) {
+            ChunkBacklog chunk = backlog.chunks.get(chunkKey);
+            if (chunk == null) {
+                if (!backlog.freshChunks.containsKey(chunkKey)) {
+                    return false; // Not new terrain, or already settled
+                }
+                if (level.getGameTime() - backlog.freshChunks.get(chunkKey) > QUIET_TICKS) {
+                    // Quiet since generation - settled without ever holding a tick
+                    backlog.freshChunks.remove(chunkKey);
+                    settledChunks.incrementAndGet();
+                    return false;
+                }
+                chunk = new ChunkBacklog();
+                backlog.chunks.put(chunkKey, chunk);
+            }
+
+            chunk.lastHeld = level.getGameTime();
+            long key = pos.asLong();
+            if (chunk.ticks.containsKey(key)) {
+                chunk.ticks.put(key, fluid); // Already held - the newest fluid type wins
+                heldTicks.incrementAndGet();
+                return true;
+            }
+            if (backlog.pendingTicks >= MAX_PENDING_PER_LEVEL) {
+                overflowTicks.incrementAndGet();
+                return false; // Backlog full - let the tick run
+            }
+            chunk.ticks.put(key, fluid);
+            backlog.pendingTicks++;
+            heldTicks.incrementAndGet();
+            return true;
+        }
+    }
+
+    public static boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * TICK END - release held ticks, fast lane first, within the settling budget
+     *
+     * @param tickMSPT current tick time estimate, used to size the bulk budget
+     */
+    public static void drainAll(Iterable<ServerLevel> levels, double tickMSPT) {
+        long budgetNanos = ConfigManager.getSettlingBudgetNanos();
+        if (BACKLOGS.isEmpty() || budgetNanos == 0) {
+            return;
+        }
+
+        long fastDeadline = System.nanoTime() + budgetNanos;
+        for (ServerLevel level : levels) {
+            FluidSettlingBacklog backlog = BACKLOGS.get(level.dimension());
+            if (backlog != null) {
+                backlog.drainFastLane(level, fastDeadline);
+            }
+        }
+
+        for (ServerLevel level : levels) {
+            FluidSettlingBacklog backlog = BACKLOGS.get(level.dimension());
+            if (backlog != null && level.getGameTime() % QUIET_TICKS == 0) {
+                backlog.expireQuietChunks(level.getGameTime());
+            }
+        }
+
+        // The bulk lane only gets what the fast lane left, so the whole drain stays within one budget
+        double share = (TARGET_TICK_MS - tickMSPT) / (TARGET_TICK_MS - IDLE_TICK_MS);
+        share = Math.max(MIN_BULK_SHARE, Math.min(1.0, share));
+        long bulkDeadline = Math.min(fastDeadline, System.nanoTime() + (long) (budgetNanos * share));
+        for (ServerLevel level : levels) {
+            FluidSettlingBacklog backlog = BACKLOGS.get(level.dimension());
+            if (backlog != null && !FlowingFluidsFixes.isEmergencyMode(level)) {
+                backlog.drainBulkLane(level, bulkDeadline);
+            }
+        }
+    }
+
+    // FAST LANE - the chunk each player stands in and its eight neighbours
+    private synchronized void drainFastLane(ServerLevel level, long deadline) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        for (ServerPlayer player : level.players()) {
+            BlockPos playerPos = player.blockPosition();
+            int playerChunkX = playerPos.getX() >> 4;
+            int playerChunkZ = playerPos.getZ() >> 4;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    ChunkBacklog chunk = chunks.get(ChunkPos.asLong(playerChunkX + dx, playerChunkZ + dz));
+                    if (chunk != null) {
+                        fastLaneTicks.addAndGet(release(level, chunk, Integer.MAX_VALUE, deadline));
+                    }
+                    if (System.nanoTime() >= deadline) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // BULK LANE - one slice per chunk, round robin, until the deadline
+    private synchronized void drainBulkLane(ServerLevel level, long deadline) {
+        long gameTime = level.getGameTime();
+        int visits = chunks.size();
+        while (visits-- > 0 && !chunks.isEmpty() && System.nanoTime() < deadline) {
+            long chunkKey = chunks.firstLongKey();
+            ChunkBacklog chunk = chunks.get(chunkKey);
+            release(level, chunk, CHUNK_SLICE, deadline);
+
+            if (chunk.ticks.isEmpty() && gameTime - chunk.lastHeld > QUIET_TICKS) {
+                // Settled - its ticks run normally from now on
+                chunks.removeFirst();
+                freshChunks.remove(chunkKey);
+                settledChunks.incrementAndGet();
+            } else {
+                chunks.getAndMoveToLast(chunkKey);
+            }
+        }
+    }
+
+    // QUIET CHUNKS - generated chunks that never held a tick settle QUIET_TICKS after generation
+    private synchronized void expireQuietChunks(long gameTime) {
+        for (Iterator<Long2LongMap.Entry> it = freshChunks.long2LongEntrySet().iterator(); it.hasNext(); ) {
+            Long2LongMap.Entry fresh = it.next();
+            if (gameTime - fresh.getLongValue() > QUIET_TICKS && !chunks.containsKey(fresh.getLongKey())) {
+                it.remove();
+                settledChunks.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Run up to limit held ticks of one chunk, oldest first. Returns the number run.
+     */
+    private int release(ServerLevel level, ChunkBacklog chunk, int limit, long deadline) {
+        int released = 0;
+        BlockPos.MutableBlockPos pos = PooledPositions.acquire();
+        try {
+            while (!chunk.ticks.isEmpty() && released < limit && System.nanoTime() < deadline) {
+                long key = chunk.ticks.firstLongKey();
+                Fluid fluid = chunk.ticks.removeFirst();
+                pendingTicks--;
+                pos.set(key);
+
+                // Skip ticks the world has moved past while they were held
+                FluidState state = level.isLoaded(pos) ? level.getFluidState(pos) : null;
+                if (state == null || state.getType() != fluid) {
+                    staleTicks.incrementAndGet();
+                    continue;
+                }
+
+                // Through tickFluid, so the tick is batched, timed and counted like any other.
+                // Immutable copy - the tick schedules follow-up ticks that keep the position
+                draining = true;
+                try {
+                    ((ServerLevelAccessor) level).flowingfluidsfixes$tickFluid(pos.immutable(), fluid);
+                } finally {
+                    draining = false;
+                }
+                releasedTicks.incrementAndGet();
+                released++;
+            }
+        } finally {
+            PooledPositions.release(pos);
+        }
+        return released;
+    }
+
+    /**
+     * Get number of held ticks of every level with a backlog
+     */
+    public static Map<ResourceKey<Level>, Integer> getPendingCounts() {
+        Map<ResourceKey<Level>, Integer> counts = new HashMap<>();
+        for (Map.Entry<ResourceKey<Level>, FluidSettlingBacklog> backlog : BACKLOGS.entrySet()) {
+            synchronized (backlog.getValue()) {
+                counts.put(backlog.getKey(), backlog.getValue().pendingTicks);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Get number of held ticks across all levels
+     */
+    public static int getTotalPendingCount() {
+        int total = 0;
+        for (FluidSettlingBacklog backlog : BACKLOGS.values()) {
+            synchronized (backlog) {
+                total += backlog.pendingTicks;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Hand the held ticks of an unloading chunk back to the level, so they are saved with it
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        FluidSettlingBacklog backlog = BACKLOGS.get(level.dimension());
+        if (backlog == null) {
+            return;
+        }
+        synchronized (backlog) {
+            backlog.freshChunks.remove(chunkKey);
+            ChunkBacklog chunk = backlog.chunks.remove(chunkKey);
+            if (chunk != null) {
+                backlog.pendingTicks -= chunk.ticks.size();
+                reschedule(level, chunk);
+            }
+        }
+    }
+
+    /**
+     * Hand every held tick of a level back to it and drop its backlog - on level unload,
+     * and on server stop before the final save
+     */
+    public static void clearLevel(ServerLevel level) {
+        FluidSettlingBacklog backlog = BACKLOGS.remove(level.dimension());
+        if (backlog == null) {
+            return;
+        }
+        synchronized (backlog) {
+            for (ChunkBacklog chunk : backlog.chunks.values()) {
+                reschedule(level, chunk);
+            }
+            backlog.chunks.clear();
+            backlog.freshChunks.clear();
+            backlog.pendingTicks = 0;
+        }
+    }
+
+    private static void reschedule(ServerLevel level, ChunkBacklog chunk) {
+        for (Long2ObjectMap.Entry<Fluid> tick : chunk.ticks.long2ObjectEntrySet()) {
+            level.scheduleTick(BlockPos.of(tick.getLongKey()), tick.getValue(), 1);
+        }
+    }
+
+    public static void clearAll() {
+        BACKLOGS.clear();
+    }
+
+    public static void resetStats() {
+        heldTicks.set(0);
+        releasedTicks.set(0);
+        fastLaneTicks.set(0);
+        staleTicks.set(0);
+        overflowTicks.set(0);
+        settledChunks.set(0);
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        int freshCount = 0;
+        int heldChunks = 0;
+        for (FluidSettlingBacklog backlog : BACKLOGS.values()) {
+            synchronized (backlog) {
+                freshCount += backlog.freshChunks.size();
+                heldChunks += backlog.chunks.size();
+            }
+        }
+        return String.format("Settling: %d pending in %d/%d chunks, %d held, %d released (%d fast lane), %d stale, %d overflow, %d settled",
+                           getTotalPendingCount(), heldChunks, freshCount, heldTicks.get(), releasedTicks.get(),
+                           fastLaneTicks.get(), staleTicks.get(), overflowTicks.get(), settledChunks.get());
+    }
+
+    /**
+     * Held fluid ticks of one settling chunk, block -> fluid type, in hold order
+     */
+    private static class ChunkBacklog {
+        final Long2ObjectLinkedOpenHashMap<Fluid> ticks = new Long2ObjectLinkedOpenHashMap<>();
+        long lastHeld;
+    }
+}
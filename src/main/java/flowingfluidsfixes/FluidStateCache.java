@@ -0,0 +1,165 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TICK-SCOPED BLOCK STATE CACHE - shared reads for fluid spread searches
+ *
+ * Flowing Fluids gives every fluid tick its own slope search caches, so neighbouring
+ * fluid blocks ticking in the same game tick read the same blocks over and over. This
+ * cache is shared by all fluid ticks of one game tick, keyed by absolute position and
+ * organized as one BlockState[4096] per chunk section. FluidState is derived from the
+ * cached BlockState, so one entry serves both.
+ *
+ * Every setBlock on the level clears the entry of the written block, and the whole
+ * cache is dropped at the start of each server tick. Section arrays go back to a pool
+ * sized from the peak number of sections a tick has used, up to a memory cap, so a
+ * steady flood reuses its arrays instead of reallocating them every tick.
+ *
+ * Server thread only - reads from other threads go straight to the level.
+ */
+public class FluidStateCache {
+    // PER-LEVEL SECTIONS - keyed by SectionPos.asLong
+    private static final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<BlockState[]>> SECTIONS = new ConcurrentHashMap<>();
+
+    // SECTION ARRAY POOL - reused across ticks instead of reallocated
+    private static final int MAX_POOLED_SECTIONS = 1024; // 1024 x 4096 references, about 16MB with compressed oops
+    private static final int PEAK_DECAY_SHIFT = 6; // the peak forgets about 1/64 per tick
+    private static final ArrayDeque<BlockState[]> FREE_SECTIONS = new ArrayDeque<>();
+    private static int peakSections = 0;
+
+    // STATISTICS - server thread only, plain counters
+    private static long hits = 0;
+    private static long misses = 0;
+    private static long invalidations = 0;
+
+    private static volatile Thread serverThread = null;
+
+    private FluidStateCache() {
+    }
+
+    /**
+     * TICK BOUNDARY - drop everything cached during the previous tick
+     */
+    public static void startTick() {
+        serverThread = Thread.currentThread();
+
+        // POOL SIZE - follow the busiest recent tick, decaying slowly once the flood is over
+        int used = 0;
+        for (Long2ObjectOpenHashMap<BlockState[]> sections : SECTIONS.values()) {
+            used += sections.size();
+        }
+        peakSections = Math.min(Math.max(used, peakSections - (peakSections >> PEAK_DECAY_SHIFT)), MAX_POOLED_SECTIONS);
+        while (FREE_SECTIONS.size() > peakSections) {
+            FREE_SECTIONS.pop();
+        }
+
+        for (Long2ObjectOpenHashMap<BlockState[]> sections : SECTIONS.values()) {
+            for (BlockState[] states : sections.values()) {
+                release(states);
+            }
+            sections.clear();
+        }
+    }
+
+    /**
+     * HOT PATH - read a block state through the tick cache
+     */
+    public static BlockState getBlockState(LevelReader reader, BlockPos pos) {
+        if (!(reader instanceof ServerLevel level) || Thread.currentThread() != serverThread) {
+            return reader.getBlockState(pos);
+        }
+
+        Long2ObjectOpenHashMap<BlockState[]> sections = SECTIONS.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+        long sectionKey = SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        BlockState[] states = sections.get(sectionKey);
+        if (states == null) {
+            states = acquire();
+            sections.put(sectionKey, states);
+        }
+
+        int index = indexOf(pos);
+        BlockState state = states[index];
+        if (state == null) {
+            state = level.getBlockState(pos);
+            states[index] = state;
+            misses++;
+        } else {
+            hits++;
+        }
+        return state;
+    }
+
+    /**
+     * Forget a block that was just written
+     */
+    public static void invalidate(ServerLevel level, BlockPos pos) {
+        if (Thread.currentThread() != serverThread) {
+            return; // Nothing cached off-thread, and the maps are not thread safe
+        }
+        Long2ObjectOpenHashMap<BlockState[]> sections = SECTIONS.get(level.dimension());
+        if (sections == null) {
+            return;
+        }
+        BlockState[] states = sections.get(SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+        if (states != null) {
+            states[indexOf(pos)] = null;
+            invalidations++;
+        }
+    }
+
+    private static int indexOf(BlockPos pos) {
+        return ((pos.getY() & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15);
+    }
+
+    private static BlockState[] acquire() {
+        BlockState[] states = FREE_SECTIONS.poll();
+        return states != null ? states : new BlockState[4096];
+    }
+
+    private static void release(BlockState[] states) {
+        if (FREE_SECTIONS.size() < peakSections) {
+            Arrays.fill(states, null);
+            FREE_SECTIONS.push(states);
+        }
+    }
+
+    /**
+     * Drop the cache of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        SECTIONS.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        SECTIONS.clear();
+        FREE_SECTIONS.clear();
+        peakSections = 0;
+    }
+
+    public static void resetStats() {
+        hits = 0;
+        misses = 0;
+        invalidations = 0;
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        long total = hits + misses;
+        double hitRate = total > 0 ? (hits * 100.0 / total) : 0.0;
+        return String.format("State cache: %d reads, %.1f%% hits, %d invalidated, %d/%d sections pooled",
+                           total, hitRate, invalidations, FREE_SECTIONS.size(), peakSections);
+    }
+}
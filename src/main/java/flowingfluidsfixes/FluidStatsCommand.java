@@ -0,0 +1,67 @@
+package flowingfluidsfixes;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.List;
+
+/**
+ * ADMIN COMMAND - /ffix stats [count] and /ffix reset
+ *
+ * Shows server and per-dimension throttle state, then the hottest fluid chunks of
+ * each dimension from the ChunkHeatmap with their skip rates and budget usage.
+ */
+public class FluidStatsCommand {
+    private static final int DEFAULT_HOT_CHUNKS = 5;
+    private static final int MAX_HOT_CHUNKS = 50;
+
+    private FluidStatsCommand() {
+    }
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("ffix")
+                .requires(source -> source.hasPermission(2))
+                .then(Commands.literal("stats")
+                        .executes(context -> showStats(context.getSource(), DEFAULT_HOT_CHUNKS))
+                        .then(Commands.argument("count", IntegerArgumentType.integer(1, MAX_HOT_CHUNKS))
+                                .executes(context -> showStats(context.getSource(), IntegerArgumentType.getInteger(context, "count")))))
+                .then(Commands.literal("reset")
+                        .executes(context -> resetStats(context.getSource()))));
+    }
+
+    private static int showStats(CommandSourceStack source, int count) {
+        ThrottleSnapshot snapshot = FlowingFluidsFixes.getSnapshot(); // One read, so the line shows a single tick
+        send(source, String.format("MSPT %.1f (tail %.1f), admission %.0f%%%s | %s | %s | %s | %s",
+                snapshot.mspt, snapshot.tailMSPT, snapshot.admissionRate * 100.0, snapshot.emergency ? " EMERGENCY" : "",
+                FluidPlacementBacklog.getStats(), FluidSettlingBacklog.getStats(), FluidTickLod.getStats(), ChunkHeatmap.getStats()));
+
+        for (ServerLevel level : source.getServer().getAllLevels()) {
+            List<ChunkHeatmap.HotChunk> hot = ChunkHeatmap.getHotChunks(level, count);
+            if (hot.isEmpty()) {
+                continue; // No fluid activity in this dimension
+            }
+            send(source, LevelThrottleState.get(level).getStats());
+            for (ChunkHeatmap.HotChunk chunk : hot) {
+                send(source, String.format("  [%d, %d] %.2fms/tick (%.0f%% of budget), %.1f events/tick (%.0f%% skipped), %.1f placements/tick (%.0f%% deferred), %.1f fluid ticks/tick",
+                        chunk.chunkX, chunk.chunkZ, chunk.millisPerTick, chunk.budgetUsage * 100.0,
+                        chunk.eventsPerTick, chunk.skipRate * 100.0,
+                        chunk.placementsPerTick, chunk.deferralRate * 100.0, chunk.fluidTicksPerTick));
+            }
+        }
+        return 1;
+    }
+
+    private static int resetStats(CommandSourceStack source) {
+        FlowingFluidsFixes.resetStats();
+        send(source, "Flowing Fluids Fixes statistics reset");
+        return 1;
+    }
+
+    private static void send(CommandSourceStack source, String message) {
+        source.sendSuccess(() -> Component.literal(message), false);
+    }
+}
@@ -0,0 +1,183 @@
+package flowingfluidsfixes;
+
+/**
+ * FLUID TICK BUDGET - nanosecond time budget for fluid work per server tick
+ *
+ * Instead of a fixed operation count, each tick gets a time budget. Work is admitted
+ * while the time already spent plus the expected cost of one more operation fits in
+ * the budget. The expected cost is an EWMA of measured operation times, so a flood
+ * tick with expensive operations admits fewer of them than a calm tick. Tracked
+ * NeighborNotify events cost a fraction of a block operation and keep an estimate
+ * of their own, so an event storm can't drag down the price of placements.
+ *
+ * The budget grows into idle tick headroom and shrinks when the tick is already
+ * running long, and is reset exactly at each tick boundary.
+ *
+ * Used from the server thread only.
+ */
+public class FluidTickBudget {
+    // CONFIGURATION
+    private static final double TARGET_TICK_MS = 45.0; // keep total tick time under the 50ms limit
+    private static final double HEADROOM_SHARE = 0.5; // share of idle headroom fluids may use
+    private static final double MAX_BUDGET_MS = 40.0;
+    private static final double MIN_BUDGET_SHARE = 0.25; // never below a quarter of the base budget
+    private static final long INITIAL_COST_NANOS = 20_000L; // 20us until real costs are measured
+    private static final long INITIAL_EVENT_COST_NANOS = 1_000L; // 1us until real event costs are measured
+    private static final double COST_EWMA_ALPHA = 0.05;
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private long budgetNanos;
+    private long spentNanos;
+    private double costPerOpNanos = INITIAL_COST_NANOS;
+    private double costPerEventNanos = INITIAL_EVENT_COST_NANOS;
+
+    // TICK STATISTICS
+    private int admittedThisTick;
+    private int rejectedThisTick;
+    private int lastTickAdmitted;
+    private int lastTickRejected;
+    private long lastTickSpentNanos;
+    private long lastTickBudgetNanos;
+
+    /**
+     * Size the fluid budget for the next tick from the configured base and tick headroom
+     *
+     * @param baseBudgetNanos configured fluid budget per tick
+     * @param tickMSPT current tick time estimate, used to size the headroom
+     */
+    public static long sizeBudget(long baseBudgetNanos, double tickMSPT) {
+        double headroomMs = (TARGET_TICK_MS - tickMSPT) * HEADROOM_SHARE;
+        double budgetMs = baseBudgetNanos / (double) NANOS_PER_MS + headroomMs;
+        budgetMs = Math.max(budgetMs, baseBudgetNanos * MIN_BUDGET_SHARE / NANOS_PER_MS);
+        budgetMs = Math.min(budgetMs, MAX_BUDGET_MS);
+        return (long) (budgetMs * NANOS_PER_MS);
+    }
+
+    /**
+     * TICK BOUNDARY - start a new budget window
+     */
+    public void startTick(long budgetNanos) {
+        lastTickAdmitted = admittedThisTick;
+        lastTickRejected = rejectedThisTick;
+        lastTickSpentNanos = spentNanos;
+        lastTickBudgetNanos = this.budgetNanos;
+
+        this.budgetNanos = budgetNanos;
+        spentNanos = 0;
+        admittedThisTick = 0;
+        rejectedThisTick = 0;
+    }
+
+    /**
+     * Check if one more operation of the expected cost fits in this tick
+     */
+    public boolean canAdmit() {
+        return spentNanos + (long) costPerOpNanos <= budgetNanos;
+    }
+
+    /**
+     * Admit one operation if it fits, charging its expected cost up front
+     */
+    public boolean tryAdmit() {
+        if (!canAdmit()) {
+            rejectedThisTick++;
+            return false;
+        }
+        charge();
+        return true;
+    }
+
+    /**
+     * Charge one operation whose cost can't be measured directly
+     */
+    public void charge() {
+        spentNanos += (long) costPerOpNanos;
+        admittedThisTick++;
+    }
+
+    /**
+     * Record the measured cost of an operation that was charged with the expected cost
+     */
+    public void recordCost(long nanos) {
+        spentNanos += nanos - (long) costPerOpNanos; // replace the estimate with the real cost
+        costPerOpNanos += COST_EWMA_ALPHA * (nanos - costPerOpNanos);
+    }
+
+    /**
+     * Check if one more event of the expected event cost fits in this tick
+     */
+    public boolean canAdmitEvent() {
+        return spentNanos + (long) costPerEventNanos <= budgetNanos;
+    }
+
+    /**
+     * Charge one event at the expected event cost
+     */
+    public void chargeEvent() {
+        spentNanos += (long) costPerEventNanos;
+        admittedThisTick++;
+    }
+
+    /**
+     * Record the measured cost of an event that was charged with chargeEvent()
+     */
+    public void recordEventCost(long nanos) {
+        spentNanos += nanos - (long) costPerEventNanos;
+        costPerEventNanos += COST_EWMA_ALPHA * (nanos - costPerEventNanos);
+    }
+
+    /**
+     * Count a rejected operation or event that was checked with canAdmit() or canAdmitEvent()
+     */
+    public void reject() {
+        rejectedThisTick++;
+    }
+
+    public long getRemainingNanos() {
+        return Math.max(0, budgetNanos - spentNanos);
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public long getSpentNanos() {
+        return spentNanos;
+    }
+
+    public double getCostPerOpNanos() {
+        return costPerOpNanos;
+    }
+
+    public double getCostPerEventNanos() {
+        return costPerEventNanos;
+    }
+
+    public int getAdmittedThisTick() {
+        return admittedThisTick;
+    }
+
+    public int getLastTickAdmitted() {
+        return lastTickAdmitted;
+    }
+
+    public void reset() {
+        budgetNanos = 0;
+        spentNanos = 0;
+        costPerOpNanos = INITIAL_COST_NANOS;
+        costPerEventNanos = INITIAL_EVENT_COST_NANOS;
+        admittedThisTick = 0;
+        rejectedThisTick = 0;
+        lastTickAdmitted = 0;
+        lastTickRejected = 0;
+        lastTickSpentNanos = 0;
+        lastTickBudgetNanos = 0;
+    }
+
+    // Simple statistics - last completed tick
+    public String getStats() {
+        return String.format("Budget: %.2f/%.2fms, %d admitted, %d rejected, %.1fus/op, %.2fus/event",
+                           lastTickSpentNanos / (double) NANOS_PER_MS, lastTickBudgetNanos / (double) NANOS_PER_MS,
+                           lastTickAdmitted, lastTickRejected, costPerOpNanos / 1000.0, costPerEventNanos / 1000.0);
+    }
+}
@@ -0,0 +1,120 @@
+package flowingfluidsfixes;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FLUID TICK LOD - distance tiers for scheduled fluid ticks
+ *
+ * NEAR chunks (inside a player's near ring) tick every tick. MID chunks tick once
+ * every lodMidInterval ticks: a fluid tick that comes due between slots is pushed
+ * to the chunk's next slot, and since the level's tick scheduler keeps one pending
+ * tick per position, everything that became due in the meantime runs as one tick.
+ * FAR chunks (loaded, but outside every mid ring) wait the same way for a settle
+ * pass every lodFarInterval ticks.
+ *
+ * Each chunk's slot is offset by a hash of its position, so the deferred work of
+ * different chunks is spread over the interval instead of landing on one tick.
+ *
+ * Ring radii follow the server's simulation distance and shrink with the tail MSPT:
+ * with full headroom the near ring is half the simulation distance and the mid ring
+ * all of it, under load they fall to a quarter and a half.
+ */
+public class FluidTickLod {
+    // CONFIGURATION
+    private static final int RETIER_TICKS = 20; // radii are recomputed once per second
+    private static final double FULL_HEADROOM_MSPT = 10.0; // widest rings at or below this tail MSPT
+    private static final double NO_HEADROOM_MSPT = 30.0; // narrowest rings from here, same as emergency
+    private static final int MIN_NEAR_RADIUS = 2;
+
+    public static final int NEAR = 0;
+    public static final int MID = 1;
+    public static final int FAR = 2;
+
+    private static int ticksSinceRetier = RETIER_TICKS;
+
+    // STATISTICS
+    private static final LongAdder nearRun = new LongAdder();
+    private static final LongAdder midRun = new LongAdder();
+    private static final LongAdder midDeferred = new LongAdder();
+    private static final LongAdder farRun = new LongAdder();
+    private static final LongAdder farDeferred = new LongAdder();
+
+    private FluidTickLod() {
+    }
+
+    /**
+     * TICK BOUNDARY - resize the rings from simulation distance and tail MSPT
+     */
+    public static void updateTiers(int simulationDistance, double tailMSPT) {
+        if (++ticksSinceRetier < RETIER_TICKS) {
+            return;
+        }
+        ticksSinceRetier = 0;
+
+        int distance = Math.max(simulationDistance, MIN_NEAR_RADIUS);
+        double headroom = (NO_HEADROOM_MSPT - tailMSPT) / (NO_HEADROOM_MSPT - FULL_HEADROOM_MSPT);
+        headroom = Math.max(0.0, Math.min(1.0, headroom));
+
+        int near = (int) Math.round(distance * (0.25 + 0.25 * headroom));
+        near = Math.max(MIN_NEAR_RADIUS, Math.min(distance, near));
+        int mid = (int) Math.round(distance * (0.5 + 0.5 * headroom));
+        mid = Math.max(near, Math.min(distance, mid));
+
+        // Only a change of radii re-registers the tracked players
+        PlayerProximityIndex.setRadii(near, mid);
+    }
+
+    /**
+     * HOT PATH - distance tier of a position
+     */
+    public static int tier(ServerLevel level, BlockPos pos) {
+        if (PlayerProximityIndex.isNearPlayer(level, pos)) {
+            return NEAR;
+        }
+        return PlayerProximityIndex.isInMidRange(level, pos) ? MID : FAR;
+    }
+
+    /**
+     * HOT PATH - ticks until a due fluid tick at pos may run, 0 to run it now
+     */
+    public static int deferTicks(ServerLevel level, BlockPos pos) {
+        int tier = tier(level, pos);
+        if (tier == NEAR) {
+            nearRun.increment();
+            return 0;
+        }
+
+        int interval = tier == MID ? ConfigManager.getLodMidInterval() : ConfigManager.getLodFarInterval();
+        int delay = interval > 1 ? Math.floorMod(slotPhase(pos) - level.getGameTime(), interval) : 0;
+        if (tier == MID) {
+            (delay == 0 ? midRun : midDeferred).increment();
+        } else {
+            (delay == 0 ? farRun : farDeferred).increment();
+        }
+        return delay;
+    }
+
+    // Stable per-chunk offset so chunks don't share a slot
+    private static long slotPhase(BlockPos pos) {
+        long hash = (pos.getX() >> 4) * 0x9E3779B97F4A7C15L ^ (pos.getZ() >> 4) * 0xC2B2AE3D27D4EB4FL;
+        return (hash ^ (hash >>> 31)) & Integer.MAX_VALUE;
+    }
+
+    public static void resetStats() {
+        nearRun.reset();
+        midRun.reset();
+        midDeferred.reset();
+        farRun.reset();
+        farDeferred.reset();
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        return String.format("LOD rings %d/%d: near %d run, mid %d run %d deferred, far %d run %d deferred",
+                           PlayerProximityIndex.getNearRadius(), PlayerProximityIndex.getMidRadius(),
+                           nearRun.sum(), midRun.sum(), midDeferred.sum(), farRun.sum(), farDeferred.sum());
+    }
+}
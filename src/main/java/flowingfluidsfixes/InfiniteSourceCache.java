@@ -0,0 +1,184 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.tags.FluidTags;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.LiquidBlockContainer;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * INFINITE SOURCE FAST PATH - skip Flowing Fluids ticks for settled ocean water
+ *
+ * Flowing Fluids checks the biome and sky light of every water tick at or below sea
+ * level to decide if the block is an infinite source. In oceans and rivers that is
+ * most fluid ticks, and almost all of them belong to source blocks surrounded by more
+ * source blocks, where the full spread evaluation changes nothing.
+ *
+ * Eligibility (infinite-source biome from BiomeOptimization plus sky access at sea
+ * level) is cached per block column and dropped when a nearby block changes. Settled
+ * eligible sources below the surface are then skipped after a five-block neighbour
+ * check instead of a full spread evaluation.
+ */
+public class InfiniteSourceCache {
+    // COLUMN CACHE - one byte per block column, per loaded chunk
+    private static final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<byte[]>> COLUMNS = new ConcurrentHashMap<>();
+
+    private static final byte UNKNOWN = 0;
+    private static final byte ELIGIBLE = 1;
+    private static final byte INELIGIBLE = 2;
+
+    // STATISTICS
+    private static final AtomicLong skippedTicks = new AtomicLong(0);
+    private static final AtomicLong columnLookups = new AtomicLong(0);
+
+    private static final Direction[] SETTLE_DIRECTIONS = {
+        Direction.DOWN, Direction.NORTH, Direction.SOUTH, Direction.WEST, Direction.EAST
+    };
+
+    private InfiniteSourceCache() {
+    }
+
+    /**
+     * HOT PATH - check if a water tick can be skipped because the source is settled
+     *
+     * The surface layer at sea level is never skipped, Flowing Fluids randomly drains
+     * it and that has to keep happening.
+     */
+    public static boolean isSettledInfiniteSource(ServerLevel level, BlockPos pos, FluidState state) {
+        if (!state.isSource() || !state.is(FluidTags.WATER)) {
+            return false;
+        }
+        if (pos.getY() >= level.getSeaLevel() || pos.getY() <= 0) {
+            return false;
+        }
+        if (!isEligibleColumn(level, pos)) {
+            return false;
+        }
+
+        BlockPos.MutableBlockPos neighbor = PooledPositions.acquire();
+        try {
+            for (Direction direction : SETTLE_DIRECTIONS) {
+                neighbor.setWithOffset(pos, direction);
+                if (!isSettledNeighbor(level.getBlockState(neighbor))) {
+                    return false;
+                }
+            }
+            skippedTicks.incrementAndGet();
+            return true;
+        } finally {
+            PooledPositions.release(neighbor);
+        }
+    }
+
+    /**
+     * Full water source, or a block that can't take any water
+     */
+    private static boolean isSettledNeighbor(BlockState neighbor) {
+        FluidState fluid = neighbor.getFluidState();
+        if (!fluid.isEmpty()) {
+            return fluid.isSource() && fluid.is(FluidTags.WATER);
+        }
+        return !neighbor.canBeReplaced() && !(neighbor.getBlock() instanceof LiquidBlockContainer);
+    }
+
+    /**
+     * Check if a column is in an infinite-source biome with sky access at sea level
+     */
+    public static boolean isEligibleColumn(ServerLevel level, BlockPos pos) {
+        byte[] columns = getChunkColumns(level, pos.getX() >> 4, pos.getZ() >> 4);
+        int index = ((pos.getZ() & 15) << 4) | (pos.getX() & 15);
+
+        byte cached = columns[index];
+        if (cached == UNKNOWN) {
+            // First lookup in this column - racing writers store the same result
+            BlockPos seaLevelPos = new BlockPos(pos.getX(), level.getSeaLevel(), pos.getZ());
+            boolean eligible = BiomeOptimization.isInfiniteSource(level, seaLevelPos)
+                    && level.getBrightness(LightLayer.SKY, seaLevelPos) > 0;
+            cached = eligible ? ELIGIBLE : INELIGIBLE;
+            columns[index] = cached;
+            columnLookups.incrementAndGet();
+        }
+        return cached == ELIGIBLE;
+    }
+
+    private static byte[] getChunkColumns(ServerLevel level, int chunkX, int chunkZ) {
+        Long2ObjectOpenHashMap<byte[]> chunks = COLUMNS.computeIfAbsent(level.dimension(), k -> new Long2ObjectOpenHashMap<>());
+        long chunkKey = ChunkRefCountSet.pack(chunkX, chunkZ);
+        synchronized (chunks) {
+            byte[] columns = chunks.get(chunkKey);
+            if (columns == null) {
+                columns = new byte[256];
+                chunks.put(chunkKey, columns);
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Forget the columns around a changed block - sky access may have changed
+     */
+    public static void invalidate(ServerLevel level, BlockPos pos) {
+        Long2ObjectOpenHashMap<byte[]> chunks = COLUMNS.get(level.dimension());
+        if (chunks == null) {
+            return;
+        }
+        synchronized (chunks) {
+            invalidateColumn(chunks, pos.getX(), pos.getZ());
+            invalidateColumn(chunks, pos.getX() + 1, pos.getZ());
+            invalidateColumn(chunks, pos.getX() - 1, pos.getZ());
+            invalidateColumn(chunks, pos.getX(), pos.getZ() + 1);
+            invalidateColumn(chunks, pos.getX(), pos.getZ() - 1);
+        }
+    }
+
+    private static void invalidateColumn(Long2ObjectOpenHashMap<byte[]> chunks, int x, int z) {
+        byte[] columns = chunks.get(ChunkRefCountSet.pack(x >> 4, z >> 4));
+        if (columns != null) {
+            columns[((z & 15) << 4) | (x & 15)] = UNKNOWN;
+        }
+    }
+
+    /**
+     * Drop cached columns of a chunk that is unloading
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        Long2ObjectOpenHashMap<byte[]> chunks = COLUMNS.get(level.dimension());
+        if (chunks != null) {
+            synchronized (chunks) {
+                chunks.remove(chunkKey);
+            }
+        }
+    }
+
+    /**
+     * Drop all cached columns of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        COLUMNS.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        COLUMNS.clear();
+    }
+
+    public static void resetStats() {
+        skippedTicks.set(0);
+        columnLookups.set(0);
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        return String.format("Infinite sources: %d settled ticks skipped, %d column lookups",
+                           skippedTicks.get(), columnLookups.get());
+    }
+}
@@ -0,0 +1,281 @@
+package flowingfluidsfixes;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PER-DIMENSION THROTTLING STATE
+ *
+ * Each ServerLevel gets its own fluid budget, per-tick counters, tick time recorder
+ * and emergency flag, so a lava flood in the Nether only throttles the Nether. The
+ * server-wide fluid budget is split across dimensions every tick, weighted by each
+ * dimension's player count and recent fluid load.
+ *
+ * The tick bookkeeping fields belong to the server thread. Everything decisions and
+ * statistics read - emergency flag, budget share, tick times, load - is published once
+ * per tick as an immutable Snapshot through a single volatile store, like the
+ * server-wide ThrottleSnapshot.
+ */
+public class LevelThrottleState {
+    // PER-LEVEL STATE
+    private static final Map<ResourceKey<Level>, LevelThrottleState> STATES = new ConcurrentHashMap<>();
+
+    // BUDGET SPLIT WEIGHTS - shares are normalized across dimensions
+    private static final double BASE_WEIGHT = 0.1; // every loaded dimension keeps a minimum share
+    private static final double PLAYER_WEIGHT = 0.6;
+    private static final double LOAD_WEIGHT = 0.3;
+    private static final double LOAD_EWMA_ALPHA = 0.1;
+
+    private final ResourceKey<Level> dimension;
+
+    // PER-TICK COUNTERS
+    private final LongAdder eventsThisTick = new LongAdder();
+    private final LongAdder levelOpsThisTick = new LongAdder();
+    private final LongAdder fluidTicksThisTick = new LongAdder();
+    private final FluidTickBudget budget = new FluidTickBudget();
+
+    // ADMISSION - spreads the controller's rates over this dimension's decisions
+    private final AdmissionController.Spreader levelOpSpreader = new AdmissionController.Spreader();
+    private final AdmissionController.Spreader entitySpreader = new AdmissionController.Spreader();
+    private final AdmissionController.Spreader chunkSpreader = new AdmissionController.Spreader();
+
+    // LEVEL TICK TIME - this dimension's share of the server tick (server thread)
+    private final TickTimeRecorder tickTimes = new TickTimeRecorder();
+    private long tickStartNanos = 0;
+    private double levelMSPT = 0.0;
+    private double tailMSPT = 0.0;
+    private FluidFlightRecorder.FluidTickBatchEvent batchEvent = null;
+
+    // LOAD AND EMERGENCY (server thread)
+    private double fluidLoad = 0.0; // EWMA of fluid events and operations per tick
+    private int playerCount = 0;
+    private double budgetShare = 1.0;
+    private boolean emergency = false;
+
+    // PUBLISHED STATE - decisions and statistics read this
+    private volatile Snapshot snapshot = Snapshot.INITIAL;
+
+    private LevelThrottleState(ResourceKey<Level> dimension) {
+        this.dimension = dimension;
+    }
+
+    /**
+     * Get the throttle state of a level
+     */
+    public static LevelThrottleState get(ServerLevel level) {
+        return STATES.computeIfAbsent(level.dimension(), LevelThrottleState::new);
+    }
+
+    /**
+     * TICK BOUNDARY - split the server fluid budget across dimensions and reset counters
+     *
+     * @param totalBudgetNanos fluid budget for the whole server this tick
+     * @param serverMSPT current server tick time
+     * @param emergencyMSPT server tick time above which the heaviest dimensions are cut off
+     */
+    public static void startServerTick(Iterable<ServerLevel> levels, long totalBudgetNanos, double serverMSPT, double emergencyMSPT) {
+        int totalPlayers = 0;
+        double totalLoad = 0.0;
+        int levelCount = 0;
+        for (ServerLevel level : levels) {
+            LevelThrottleState state = get(level);
+            state.playerCount = level.players().size();
+            totalPlayers += state.playerCount;
+            totalLoad += state.fluidLoad;
+            levelCount++;
+        }
+
+        double totalWeight = 0.0;
+        for (ServerLevel level : levels) {
+            LevelThrottleState state = get(level);
+            state.budgetShare = state.weight(totalPlayers, totalLoad, levelCount);
+            totalWeight += state.budgetShare;
+        }
+
+        for (ServerLevel level : levels) {
+            LevelThrottleState state = get(level);
+            state.budgetShare = totalWeight > 0.0 ? state.budgetShare / totalWeight : 1.0;
+            state.budget.startTick((long) (totalBudgetNanos * state.budgetShare));
+
+            // EMERGENCY - only dimensions using more than their share of an overloaded tick
+            boolean wasEmergency = state.emergency;
+            state.emergency = state.levelMSPT > emergencyMSPT
+                    || (serverMSPT > emergencyMSPT && state.levelMSPT > serverMSPT * state.budgetShare);
+            state.publish(totalBudgetNanos);
+            if (state.emergency != wasEmergency) {
+                FluidFlightRecorder.emergencyMode(state, serverMSPT);
+            }
+
+            state.eventsThisTick.reset();
+            state.levelOpsThisTick.reset();
+            state.fluidTicksThisTick.reset();
+        }
+    }
+
+    /**
+     * PUBLISH - one immutable state per tick, a single volatile store
+     */
+    private void publish(long totalBudgetNanos) {
+        snapshot = new Snapshot(levelMSPT, tailMSPT, fluidLoad, playerCount, budgetShare,
+                                (long) (totalBudgetNanos * budgetShare), emergency);
+    }
+
+    private double weight(int totalPlayers, double totalLoad, int levelCount) {
+        double playerShare = totalPlayers > 0 ? playerCount / (double) totalPlayers : 1.0 / levelCount;
+        double loadShare = totalLoad > 0.0 ? fluidLoad / totalLoad : 1.0 / levelCount;
+        return BASE_WEIGHT + PLAYER_WEIGHT * playerShare + LOAD_WEIGHT * loadShare;
+    }
+
+    /**
+     * LEVEL TICK START - called from the level tick START phase
+     */
+    public void startLevelTick() {
+        tickStartNanos = System.nanoTime();
+
+        // JFR - only kept when a recording has the event enabled
+        FluidFlightRecorder.FluidTickBatchEvent event = new FluidFlightRecorder.FluidTickBatchEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            batchEvent = event;
+        }
+    }
+
+    /**
+     * LEVEL TICK END - record this dimension's tick time and fluid load
+     */
+    public void endLevelTick() {
+        if (tickStartNanos != 0) {
+            tickTimes.record(System.nanoTime() - tickStartNanos);
+            levelMSPT = tickTimes.getEwmaMillis();
+            tailMSPT = Math.max(levelMSPT, tickTimes.getP95Millis());
+        }
+
+        long load = eventsThisTick.sum() + levelOpsThisTick.sum();
+        fluidLoad += LOAD_EWMA_ALPHA * (load - fluidLoad);
+
+        FluidFlightRecorder.FluidTickBatchEvent event = batchEvent;
+        if (event != null) {
+            batchEvent = null;
+            event.end();
+            if (event.shouldCommit()) {
+                event.dimension = dimension.location().toString();
+                event.fluidTicks = fluidTicksThisTick.sum();
+                event.fluidEvents = eventsThisTick.sum();
+                event.levelOps = levelOpsThisTick.sum();
+                event.budgetNanos = budget.getBudgetNanos();
+                event.spentNanos = budget.getSpentNanos();
+                event.commit();
+            }
+        }
+    }
+
+    public void countEvent() {
+        eventsThisTick.increment();
+        budget.chargeEvent();
+    }
+
+    public void countFluidTick() {
+        fluidTicksThisTick.increment();
+    }
+
+    public void countLevelOp() {
+        levelOpsThisTick.increment();
+        budget.charge();
+    }
+
+    public FluidTickBudget getBudget() {
+        return budget;
+    }
+
+    public AdmissionController.Spreader getLevelOpSpreader() {
+        return levelOpSpreader;
+    }
+    
+    public AdmissionController.Spreader getEntitySpreader() {
+        return entitySpreader;
+    }
+    
+    public AdmissionController.Spreader getChunkSpreader() {
+        return chunkSpreader;
+    }
+    
+    public ResourceKey<Level> getDimension() {
+        return dimension;
+    }
+
+    public long getEventsThisTick() {
+        return eventsThisTick.sum();
+    }
+
+    public long getLevelOpsThisTick() {
+        return levelOpsThisTick.sum();
+    }
+
+    /**
+     * Published state of this dimension - read it once and use its fields for a whole decision
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isEmergency() {
+        return snapshot.emergency;
+    }
+
+    /**
+     * Get all tracked dimension states
+     */
+    public static Iterable<LevelThrottleState> all() {
+        return STATES.values();
+    }
+
+    /**
+     * Drop the state of a level that is unloading
+     */
+    public static void remove(ServerLevel level) {
+        STATES.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        STATES.clear();
+    }
+
+    // Simple statistics
+    public String getStats() {
+        Snapshot state = snapshot;
+        return String.format("%s: %.1fms (tail %.1fms), share %.0f%%, %d players, load %.1f/tick, %d ops, %s%s",
+                           dimension.location(), state.levelMSPT, state.tailMSPT, state.budgetShare * 100.0, state.playerCount,
+                           state.fluidLoad, levelOpsThisTick.sum(), state.emergency ? "EMERGENCY, " : "", budget.getStats());
+    }
+
+    /**
+     * LEVEL SNAPSHOT - immutable state of one dimension for one tick
+     */
+    public static final class Snapshot {
+        static final Snapshot INITIAL = new Snapshot(0.0, 0.0, 0.0, 0, 1.0, 0L, false);
+
+        public final double levelMSPT;   // EWMA of this dimension's level tick time
+        public final double tailMSPT;    // p95 level tick time, never below the EWMA
+        public final double fluidLoad;   // EWMA of fluid events and operations per tick
+        public final int playerCount;
+        public final double budgetShare; // share of the server fluid budget this tick
+        public final long budgetNanos;   // fluid budget this tick
+        public final boolean emergency;
+
+        Snapshot(double levelMSPT, double tailMSPT, double fluidLoad, int playerCount,
+                 double budgetShare, long budgetNanos, boolean emergency) {
+            this.levelMSPT = levelMSPT;
+            this.tailMSPT = tailMSPT;
+            this.fluidLoad = fluidLoad;
+            this.playerCount = playerCount;
+            this.budgetShare = budgetShare;
+            this.budgetNanos = budgetNanos;
+            this.emergency = emergency;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LEVELING ADMISSION - token buckets for Flowing Fluids' random-tick leveling
+ *
+ * Random-tick leveling has no cap of its own, so with a large view distance thousands
+ * of chunks can each start leveling work in the same tick. Every leveling random tick
+ * now needs a token from its chunk's bucket and one from a global bucket.
+ *
+ * The global bucket is refilled once per server tick in proportion to the MSPT headroom,
+ * so leveling cost stays flat however many chunks are loaded. Chunk buckets refill
+ * lazily with game time and stop one busy chunk from taking the whole global budget.
+ * Chunks near a player refill faster and may drain the global bucket; other chunks stop
+ * once it falls to its reserve.
+ *
+ * Server thread only.
+ */
+public class LevelingAdmission {
+    // CONFIGURATION
+    private static final double TARGET_TICK_MS = 45.0; // same tick target as FluidTickBudget
+    private static final double MIN_REFILL_SHARE = 0.1; // leveling never stops entirely
+    private static final double GLOBAL_CAPACITY_TICKS = 2.0; // global bucket holds two ticks of refill
+    private static final double FAR_RESERVE_SHARE = 0.25; // share of the global bucket kept for near chunks
+    private static final long CHUNK_CAPACITY = 8;
+    private static final long NEAR_REFILL_TICKS = 2; // one chunk token per 2 ticks near players
+    private static final long FAR_REFILL_TICKS = 20; // one chunk token per second elsewhere
+
+    // CHUNK BUCKETS - per level, chunk key -> (last refill game time << 4) | tokens
+    private static final Map<ResourceKey<Level>, Long2LongOpenHashMap> CHUNK_BUCKETS = new HashMap<>();
+
+    // GLOBAL BUCKET
+    private static double globalTokens = 0;
+    private static double globalCapacity = 0;
+    private static double lastRefill = 0;
+
+    // STATISTICS
+    private static final AtomicLong admitted = new AtomicLong(0);
+    private static final AtomicLong rejectedByChunk = new AtomicLong(0);
+    private static final AtomicLong rejectedByGlobal = new AtomicLong(0);
+
+    private LevelingAdmission() {
+    }
+
+    /**
+     * TICK BOUNDARY - refill the global bucket from the tick headroom
+     *
+     * @param tickMSPT current tick time estimate
+     */
+    public static void startTick(double tickMSPT) {
+        int tokensPerTick = ConfigManager.getLevelingTokensPerTick();
+        double share = (TARGET_TICK_MS - tickMSPT) / TARGET_TICK_MS;
+        share = Math.max(MIN_REFILL_SHARE, Math.min(1.0, share));
+
+        lastRefill = tokensPerTick * share;
+        globalCapacity = tokensPerTick * GLOBAL_CAPACITY_TICKS;
+        globalTokens = Math.min(globalCapacity, globalTokens + lastRefill);
+    }
+
+    /**
+     * HOT PATH - take a chunk token and a global token for one leveling random tick
+     */
+    public static boolean tryAdmit(ServerLevel level, BlockPos pos) {
+        if (ConfigManager.getLevelingTokensPerTick() <= 0) {
+            return true; // No cap configured
+        }
+
+        boolean nearPlayer = PlayerProximityIndex.isNearPlayer(level, pos);
+        if (globalTokens < 1 || (!nearPlayer && globalTokens < globalCapacity * FAR_RESERVE_SHARE)) {
+            rejectedByGlobal.incrementAndGet();
+            return false;
+        }
+
+        Long2LongOpenHashMap buckets = CHUNK_BUCKETS.computeIfAbsent(level.dimension(), k -> new Long2LongOpenHashMap());
+        long chunkKey = ChunkRefCountSet.pack(pos.getX() >> 4, pos.getZ() >> 4);
+        long gameTime = level.getGameTime();
+        long tokens;
+        long refillTime;
+
+        if (buckets.containsKey(chunkKey)) {
+            long bucket = buckets.get(chunkKey);
+            refillTime = bucket >>> 4;
+            tokens = bucket & 15;
+            long refillTicks = nearPlayer ? NEAR_REFILL_TICKS : FAR_REFILL_TICKS;
+            long refilled = (gameTime - refillTime) / refillTicks;
+            if (refilled > 0) {
+                tokens = Math.min(CHUNK_CAPACITY, tokens + refilled);
+                refillTime = tokens == CHUNK_CAPACITY ? gameTime : refillTime + refilled * refillTicks;
+            }
+        } else {
+            tokens = CHUNK_CAPACITY;
+            refillTime = gameTime;
+        }
+
+        if (tokens == 0) {
+            buckets.put(chunkKey, (refillTime << 4) | tokens);
+            rejectedByChunk.incrementAndGet();
+            return false;
+        }
+        buckets.put(chunkKey, (refillTime << 4) | (tokens - 1));
+        globalTokens -= 1;
+        admitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Drop the bucket of a chunk that is unloading
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        Long2LongOpenHashMap buckets = CHUNK_BUCKETS.get(level.dimension());
+        if (buckets != null) {
+            buckets.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Drop all buckets of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        CHUNK_BUCKETS.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        CHUNK_BUCKETS.clear();
+        globalTokens = 0;
+        globalCapacity = 0;
+        lastRefill = 0;
+    }
+
+    public static void resetStats() {
+        admitted.set(0);
+        rejectedByChunk.set(0);
+        rejectedByGlobal.set(0);
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        return String.format("Leveling: %d admitted, %d chunk-limited, %d global-limited, %.0f/%.0f tokens (+%.0f/tick)",
+                           admitted.get(), rejectedByChunk.get(), rejectedByGlobal.get(), globalTokens, globalCapacity, lastRefill);
+    }
+}
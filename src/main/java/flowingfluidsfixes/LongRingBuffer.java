@@ -0,0 +1,77 @@
+package flowingfluidsfixes;
+
+/**
+ * FIXED-CAPACITY RING BUFFER - primitive long history with O(1) insert
+ *
+ * Once full, each add overwrites the oldest entry. No boxing, no shifting,
+ * and memory never grows past the initial array.
+ *
+ * Not thread-safe - callers synchronize if needed.
+ */
+public class LongRingBuffer {
+    private final long[] values;
+    private int next;  // slot the next add writes to
+    private int size;
+
+    public LongRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Add a value, overwriting the oldest one when full
+     */
+    public void add(long value) {
+        values[next] = value;
+        next = next + 1 == values.length ? 0 : next + 1;
+        if (size < values.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Get a value by age, 0 = newest
+     */
+    public long getNewest(int age) {
+        if (age < 0 || age >= size) {
+            throw new IndexOutOfBoundsException("age " + age + " out of bounds for size " + size);
+        }
+        int index = next - 1 - age;
+        return values[index < 0 ? index + values.length : index];
+    }
+
+    /**
+     * Copy the contents oldest-first into a new array
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int start = next - size;
+        if (start < 0) {
+            start += values.length;
+        }
+        for (int i = 0; i < size; i++) {
+            int index = start + i;
+            result[i] = values[index >= values.length ? index - values.length : index];
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,216 @@
+package flowingfluidsfixes;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PLAYER PROXIMITY INDEX - precomputed "active chunk" sets per dimension
+ *
+ * Every chunk within the near and mid radius of a player is pre-expanded into a
+ * primitive ChunkRefCountSet per ring, so finding how close a fluid event is to a
+ * player is at most two allocation-free lookups instead of scanning the
+ * surrounding chunks.
+ *
+ * INCREMENTAL UPDATES - the index is updated when a player logs in, crosses a chunk
+ * boundary, changes dimension or logs out. A chunk move only touches the chunks that
+ * leave or enter the player's radius; nothing is ever cleared and rebuilt. Only a
+ * change of radii (setRadii) re-registers every player.
+ */
+public class PlayerProximityIndex {
+    // ACTIVE CHUNKS - packed ChunkPos longs per dimension, one set per ring
+    private static final Map<ResourceKey<Level>, ChunkRefCountSet> ACTIVE_CHUNKS = new ConcurrentHashMap<>();
+    private static final Map<ResourceKey<Level>, ChunkRefCountSet> MID_CHUNKS = new ConcurrentHashMap<>();
+
+    // RING RADII - in chunks, mid is never smaller than near
+    private static final int DEFAULT_RADIUS = 3;
+    private static volatile int nearRadius = DEFAULT_RADIUS;
+    private static volatile int midRadius = DEFAULT_RADIUS;
+
+    // TRACKED PLAYERS - where each player's radius is currently registered
+    private static final Map<UUID, TrackedPlayer> TRACKED_PLAYERS = new ConcurrentHashMap<>();
+
+    private PlayerProximityIndex() {
+    }
+
+    /**
+     * HOT PATH - check if a block position is within the near radius of any player
+     */
+    public static boolean isNearPlayer(ServerLevel level, BlockPos pos) {
+        ChunkRefCountSet active = ACTIVE_CHUNKS.get(level.dimension());
+        return active != null && active.contains(ChunkRefCountSet.pack(pos.getX() >> 4, pos.getZ() >> 4));
+    }
+
+    /**
+     * HOT PATH - check if a block position is within the mid radius of any player
+     */
+    public static boolean isInMidRange(ServerLevel level, BlockPos pos) {
+        ChunkRefCountSet mid = MID_CHUNKS.get(level.dimension());
+        return mid != null && mid.contains(ChunkRefCountSet.pack(pos.getX() >> 4, pos.getZ() >> 4));
+    }
+
+    /**
+     * Register or move a player to its current dimension and chunk
+     */
+    public static void update(ServerPlayer player) {
+        BlockPos pos = player.blockPosition();
+        moveTo(player.getUUID(), player.level().dimension(), pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    /**
+     * Move a player's rings to a new dimension and chunk, touching only changed chunks
+     */
+    public static void moveTo(UUID playerId, ResourceKey<Level> dimension, int chunkX, int chunkZ) {
+        TrackedPlayer tracked = TRACKED_PLAYERS.get(playerId);
+        int near = nearRadius;
+        int mid = midRadius;
+        if (tracked == null) {
+            addRings(dimension, chunkX, chunkZ, near, mid);
+            TRACKED_PLAYERS.put(playerId, new TrackedPlayer(dimension, chunkX, chunkZ, near, mid));
+            return;
+        }
+
+        if (tracked.dimension == dimension && tracked.chunkX == chunkX && tracked.chunkZ == chunkZ
+                && tracked.nearRadius == near && tracked.midRadius == mid) {
+            return; // Same chunk - nothing to do
+        }
+
+        if (tracked.dimension != dimension || tracked.nearRadius != near || tracked.midRadius != mid) {
+            // Different dimension or radii - no overlap to preserve
+            removeRings(tracked);
+            addRings(dimension, chunkX, chunkZ, near, mid);
+        } else {
+            moveWithinDimension(chunksFor(ACTIVE_CHUNKS, dimension), tracked.chunkX, tracked.chunkZ, chunkX, chunkZ, near);
+            moveWithinDimension(chunksFor(MID_CHUNKS, dimension), tracked.chunkX, tracked.chunkZ, chunkX, chunkZ, mid);
+        }
+
+        tracked.dimension = dimension;
+        tracked.chunkX = chunkX;
+        tracked.chunkZ = chunkZ;
+        tracked.nearRadius = near;
+        tracked.midRadius = mid;
+    }
+
+    /**
+     * Change the ring radii and re-register every tracked player with them
+     */
+    public static void setRadii(int near, int mid) {
+        mid = Math.max(mid, near);
+        if (near == nearRadius && mid == midRadius) {
+            return;
+        }
+        nearRadius = near;
+        midRadius = mid;
+        for (TrackedPlayer tracked : TRACKED_PLAYERS.values()) {
+            removeRings(tracked);
+            addRings(tracked.dimension, tracked.chunkX, tracked.chunkZ, near, mid);
+            tracked.nearRadius = near;
+            tracked.midRadius = mid;
+        }
+    }
+
+    public static int getNearRadius() {
+        return nearRadius;
+    }
+
+    public static int getMidRadius() {
+        return midRadius;
+    }
+
+    /**
+     * Remove a player that logged out
+     */
+    public static void remove(UUID playerId) {
+        TrackedPlayer tracked = TRACKED_PLAYERS.remove(playerId);
+        if (tracked != null) {
+            removeRings(tracked);
+        }
+    }
+
+    /**
+     * Get number of active chunks across all dimensions
+     */
+    public static int getActiveChunkCount() {
+        int total = 0;
+        for (ChunkRefCountSet active : ACTIVE_CHUNKS.values()) {
+            total += active.size();
+        }
+        return total;
+    }
+
+    public static int getTrackedPlayerCount() {
+        return TRACKED_PLAYERS.size();
+    }
+
+    public static void clear() {
+        ACTIVE_CHUNKS.clear();
+        MID_CHUNKS.clear();
+        TRACKED_PLAYERS.clear();
+    }
+
+    private static ChunkRefCountSet chunksFor(Map<ResourceKey<Level>, ChunkRefCountSet> rings, ResourceKey<Level> dimension) {
+        return rings.computeIfAbsent(dimension, k -> new ChunkRefCountSet());
+    }
+
+    private static void addRings(ResourceKey<Level> dimension, int chunkX, int chunkZ, int near, int mid) {
+        chunksFor(ACTIVE_CHUNKS, dimension).incrementRadius(chunkX, chunkZ, near);
+        chunksFor(MID_CHUNKS, dimension).incrementRadius(chunkX, chunkZ, mid);
+    }
+
+    private static void removeRings(TrackedPlayer tracked) {
+        ChunkRefCountSet active = ACTIVE_CHUNKS.get(tracked.dimension);
+        if (active != null) {
+            active.decrementRadius(tracked.chunkX, tracked.chunkZ, tracked.nearRadius);
+        }
+        ChunkRefCountSet mid = MID_CHUNKS.get(tracked.dimension);
+        if (mid != null) {
+            mid.decrementRadius(tracked.chunkX, tracked.chunkZ, tracked.midRadius);
+        }
+    }
+
+    /**
+     * Decrement chunks leaving the square radius and increment chunks entering it;
+     * chunks covered by both the old and new square are left untouched
+     */
+    private static void moveWithinDimension(ChunkRefCountSet active, int oldX, int oldZ, int newX, int newZ, int radius) {
+        for (int x = oldX - radius; x <= oldX + radius; x++) {
+            for (int z = oldZ - radius; z <= oldZ + radius; z++) {
+                if (Math.abs(x - newX) > radius || Math.abs(z - newZ) > radius) {
+                    active.decrement(ChunkRefCountSet.pack(x, z));
+                }
+            }
+        }
+        for (int x = newX - radius; x <= newX + radius; x++) {
+            for (int z = newZ - radius; z <= newZ + radius; z++) {
+                if (Math.abs(x - oldX) > radius || Math.abs(z - oldZ) > radius) {
+                    active.increment(ChunkRefCountSet.pack(x, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * Current registration of one player
+     */
+    private static class TrackedPlayer {
+        ResourceKey<Level> dimension;
+        int chunkX;
+        int chunkZ;
+        int nearRadius;
+        int midRadius;
+
+        TrackedPlayer(ResourceKey<Level> dimension, int chunkX, int chunkZ, int nearRadius, int midRadius) {
+            this.dimension = dimension;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.nearRadius = nearRadius;
+            this.midRadius = midRadius;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package flowingfluidsfixes;
+
+import net.minecraft.core.BlockPos;
+
+/**
+ * POOLED SCRATCH POSITIONS - MutableBlockPos instances from a magazine ObjectPool
+ *
+ * For scratch positions that are handed to Minecraft or Flowing Fluids code, where
+ * escape analysis can't prove they stay local and every call would otherwise
+ * allocate. Always release in a finally block; a position must not be used after
+ * it is released.
+ */
+public class PooledPositions {
+    private static final ObjectPool<BlockPos.MutableBlockPos> POOL =
+            new ObjectPool<>(BlockPos.MutableBlockPos::new, pos -> pos.set(0, 0, 0), pos -> { });
+
+    private PooledPositions() {
+    }
+
+    public static BlockPos.MutableBlockPos acquire() {
+        return POOL.acquire();
+    }
+
+    public static void release(BlockPos.MutableBlockPos pos) {
+        POOL.release(pos);
+    }
+
+    public static void resetStats() {
+        POOL.resetStats();
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        return "Scratch positions: " + POOL.getStats();
+    }
+}
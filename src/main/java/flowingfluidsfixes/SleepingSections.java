@@ -0,0 +1,243 @@
+package flowingfluidsfixes;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SLEEPING SECTIONS - skip random-tick leveling in sections whose fluid has settled
+ *
+ * Flowing Fluids levels water on random ticks in every chunk with a near-empty tick
+ * container, which is every idle lake in loaded chunks. Each of those random ticks
+ * shuffles the cardinals and probes neighbours, and in a settled lake finds nothing.
+ *
+ * A quiet section is not necessarily level: random ticks are rare, and leveling ticks
+ * turned away by LevelingAdmission write nothing. So a section only falls asleep on
+ * evidence from Flowing Fluids itself. Per chunk section the game time of the last
+ * block write is kept with the number of leveling random ticks since then that ran
+ * to completion and moved nothing. Once IDLE_LEVELING_TICKS of those have been seen
+ * and there has been no write for sleepingSectionTicks, the section is asleep and its
+ * leveling random ticks are skipped. Rejected leveling ticks are no evidence either
+ * way. Any write in the section, or on the border of a neighbouring one, wakes it
+ * again and clears its count; leveling that does move water is such a write.
+ *
+ * Only sections where a leveling random tick got past Flowing Fluids' own checks are
+ * tracked, one map entry each, so chunks without leveling water cost nothing.
+ */
+public class SleepingSections {
+    // PER-LEVEL ACTIVITY - (last write game time << 8) | idle leveling ticks since, per SectionPos.asLong
+    private static final Map<ResourceKey<Level>, LevelSections> LEVELS = new ConcurrentHashMap<>();
+
+    private static final long UNSEEN = Long.MIN_VALUE;
+    private static final int IDLE_LEVELING_TICKS = 8; // leveling ticks that moved nothing before a section may sleep
+    private static final long IDLE_MASK = 0xFF;
+
+    // LEVELING IN PROGRESS - the admitted leveling random tick running now, server thread only
+    private static boolean leveling = false;
+    private static boolean levelingMoved = false;
+    private static long levelingSection = 0;
+
+    // STATISTICS
+    private static final AtomicLong skippedLeveling = new AtomicLong(0);
+    private static final AtomicLong wakeUps = new AtomicLong(0);
+    private static final AtomicLong idleLeveling = new AtomicLong(0);
+
+    private SleepingSections() {
+    }
+
+    private static class LevelSections {
+        final Long2LongOpenHashMap lastWrite = new Long2LongOpenHashMap();
+        final int minSection;
+        final int sectionCount;
+        volatile long gameTime;
+
+        LevelSections(ServerLevel level) {
+            this.minSection = level.getMinSection();
+            this.sectionCount = level.getSectionsCount();
+            this.lastWrite.defaultReturnValue(UNSEEN);
+        }
+    }
+
+    /**
+     * HOT PATH - check if leveling in the section of this position can be skipped
+     *
+     * A section seen for the first time starts awake, so it only falls asleep after a
+     * full quiet period of its own with enough idle leveling ticks.
+     */
+    public static boolean isAsleep(ServerLevel level, BlockPos pos) {
+        int sleepTicks = ConfigManager.getSleepingSectionTicks();
+        if (sleepTicks <= 0) {
+            return false;
+        }
+        LevelSections sections = get(level);
+        long gameTime = level.getGameTime();
+        sections.gameTime = gameTime;
+
+        long sectionKey = SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        synchronized (sections.lastWrite) {
+            long activity = sections.lastWrite.get(sectionKey);
+            if (activity == UNSEEN) {
+                sections.lastWrite.put(sectionKey, gameTime << 8);
+                return false;
+            }
+            if (!isAsleep(activity, gameTime, sleepTicks)) {
+                return false;
+            }
+        }
+        skippedLeveling.incrementAndGet();
+        return true;
+    }
+
+    private static boolean isAsleep(long activity, long gameTime, int sleepTicks) {
+        return (activity & IDLE_MASK) >= IDLE_LEVELING_TICKS && gameTime - (activity >> 8) >= sleepTicks;
+    }
+
+    /**
+     * A leveling random tick in the section of this position was admitted and is running now
+     */
+    public static void startLeveling(BlockPos pos) {
+        leveling = true;
+        levelingMoved = false;
+        levelingSection = SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+    }
+
+    /**
+     * The running leveling random tick returned - count it as idle if it wrote nothing
+     */
+    public static void endLeveling(ServerLevel level) {
+        if (!leveling) {
+            return;
+        }
+        leveling = false;
+        if (levelingMoved) {
+            return; // Its write already woke the section
+        }
+        LevelSections sections = LEVELS.get(level.dimension());
+        if (sections == null) {
+            return;
+        }
+        synchronized (sections.lastWrite) {
+            long activity = sections.lastWrite.get(levelingSection);
+            if (activity != UNSEEN && (activity & IDLE_MASK) < IDLE_MASK) {
+                sections.lastWrite.put(levelingSection, activity + 1);
+            }
+        }
+        idleLeveling.incrementAndGet();
+    }
+
+    /**
+     * Mark the section of a written block awake, and the neighbouring section when
+     * the block sits on its border
+     */
+    public static void onBlockWrite(ServerLevel level, BlockPos pos) {
+        if (leveling) {
+            levelingMoved = true;
+        }
+        LevelSections sections = LEVELS.get(level.dimension());
+        if (sections == null) {
+            return; // No leveling random ticks seen yet
+        }
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+        long gameTime = level.getGameTime();
+        synchronized (sections.lastWrite) {
+            wake(sections, x, y, z, gameTime);
+            if ((x & 15) == 0) wake(sections, x - 1, y, z, gameTime);
+            if ((x & 15) == 15) wake(sections, x + 1, y, z, gameTime);
+            if ((z & 15) == 0) wake(sections, x, y, z - 1, gameTime);
+            if ((z & 15) == 15) wake(sections, x, y, z + 1, gameTime);
+            if ((y & 15) == 0) wake(sections, x, y - 1, z, gameTime);
+            if ((y & 15) == 15) wake(sections, x, y + 1, z, gameTime);
+        }
+    }
+
+    private static void wake(LevelSections sections, int x, int y, int z, long gameTime) {
+        long sectionKey = SectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        long previous = sections.lastWrite.get(sectionKey);
+        if (previous == UNSEEN) {
+            return; // Section never leveled - nothing asleep there
+        }
+        int sleepTicks = ConfigManager.getSleepingSectionTicks();
+        if (sleepTicks > 0 && isAsleep(previous, gameTime, sleepTicks)) {
+            wakeUps.incrementAndGet();
+        }
+        sections.lastWrite.put(sectionKey, gameTime << 8);
+    }
+
+    private static LevelSections get(ServerLevel level) {
+        return LEVELS.computeIfAbsent(level.dimension(), k -> new LevelSections(level));
+    }
+
+    /**
+     * Drop activity of a chunk that is unloading
+     */
+    public static void evictChunk(ServerLevel level, long chunkKey) {
+        LevelSections sections = LEVELS.get(level.dimension());
+        if (sections != null) {
+            int chunkX = ChunkPos.getX(chunkKey);
+            int chunkZ = ChunkPos.getZ(chunkKey);
+            synchronized (sections.lastWrite) {
+                for (int y = sections.minSection; y < sections.minSection + sections.sectionCount; y++) {
+                    sections.lastWrite.remove(SectionPos.asLong(chunkX, y, chunkZ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all activity of a level that is unloading
+     */
+    public static void clearLevel(ServerLevel level) {
+        LEVELS.remove(level.dimension());
+    }
+
+    public static void clearAll() {
+        LEVELS.clear();
+        leveling = false;
+    }
+
+    public static void resetStats() {
+        skippedLeveling.set(0);
+        wakeUps.set(0);
+        idleLeveling.set(0);
+    }
+
+    /**
+     * Count tracked sections as {sleeping, awake}
+     */
+    public static long[] countSections() {
+        int sleepTicks = ConfigManager.getSleepingSectionTicks();
+        long sleeping = 0;
+        long awake = 0;
+        for (LevelSections sections : LEVELS.values()) {
+            long gameTime = sections.gameTime;
+            synchronized (sections.lastWrite) {
+                for (LongIterator it = sections.lastWrite.values().iterator(); it.hasNext(); ) {
+                    if (sleepTicks > 0 && isAsleep(it.nextLong(), gameTime, sleepTicks)) {
+                        sleeping++;
+                    } else {
+                        awake++;
+                    }
+                }
+            }
+        }
+        return new long[] {sleeping, awake};
+    }
+
+    // Simple statistics
+    public static String getStats() {
+        long[] counts = countSections();
+        return String.format("Sleeping sections: %d asleep, %d awake, %d leveling ticks skipped, %d idle leveling ticks, %d wake-ups",
+                           counts[0], counts[1], skippedLeveling.get(), idleLeveling.get(), wakeUps.get());
+    }
+}
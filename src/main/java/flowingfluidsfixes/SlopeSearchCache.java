@@ -0,0 +1,128 @@
+package flowingfluidsfixes;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * FLAT SLOPE SEARCH CACHE - allocation-free replacement for the per-search maps
+ *
+ * Flowing Fluids already packs the x/z offset from the search origin into a 16-bit
+ * key (ffCacheKey), so every possible key fits a flat 65,536 entry array. Each thread
+ * keeps one StampedCache - block states plus a flow-down bit - and entries are
+ * validated by a generation stamp instead of being cleared, so starting a new search
+ * is a single increment.
+ *
+ * The cache also holds the scratch of the first-level search - the four candidate
+ * directions and their fluid amounts - so a whole spread search allocates nothing.
+ *
+ * Misses are read through FluidStateCache, so the tick-wide cache is still shared.
+ * Thread-confined; get an instance with newSearch().
+ */
+public class SlopeSearchCache {
+    private static final int SIZE = 1 << 16; // every ffCacheKey value
+    private static final int ORIGIN_KEY = (128 << 8) | 128;
+    private static final int MAX_DEPTH = 64; // slope distances are single digits in practice
+
+    // Same order as Direction.Plane.HORIZONTAL, without its iterator
+    public static final Direction[] HORIZONTALS = {
+        Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST
+    };
+
+    private static final ThreadLocal<SlopeSearchCache> CACHES = ThreadLocal.withInitial(SlopeSearchCache::new);
+
+    // STAMPED ARRAYS - indexed by ffCacheKey, block state values and flow-down flags
+    private final StampedCache slots = new StampedCache(SIZE);
+
+    // SCRATCH POSITIONS - one per search depth, plus one for flow-down checks
+    private final BlockPos.MutableBlockPos[] positions = new BlockPos.MutableBlockPos[MAX_DEPTH + 2];
+    private final BlockPos.MutableBlockPos below = new BlockPos.MutableBlockPos();
+    private final BlockPos.MutableBlockPos firstLevel = new BlockPos.MutableBlockPos();
+
+    // FIRST LEVEL - candidate directions of the search, in Flowing Fluids' order, and their fluid amounts
+    private final Direction[] directions = new Direction[HORIZONTALS.length];
+    private final int[] amounts = new int[HORIZONTALS.length];
+
+    private SlopeSearchCache() {
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new BlockPos.MutableBlockPos();
+        }
+    }
+
+    /**
+     * Get this thread's cache with a new generation for a new spread search
+     */
+    public static SlopeSearchCache newSearch() {
+        SlopeSearchCache cache = CACHES.get();
+        cache.nextGeneration();
+        return cache;
+    }
+
+    private void nextGeneration() {
+        slots.nextGeneration();
+        // The origin never counts as a drop, same as Flowing Fluids seeds its map
+        setFlowDown(ORIGIN_KEY, false);
+    }
+
+    /**
+     * Same packing as Flowing Fluids' ffCacheKey
+     */
+    public static int key(BlockPos origin, BlockPos pos) {
+        return (((pos.getX() - origin.getX() + 128) & 255) << 8) | ((pos.getZ() - origin.getZ() + 128) & 255);
+    }
+
+    /**
+     * HOT PATH - cached block state for a search key
+     */
+    public BlockState getState(LevelReader level, int key, BlockPos pos) {
+        if (slots.hasValue(key)) {
+            return (BlockState) slots.getValue(key);
+        }
+        BlockState state = FluidStateCache.getBlockState(level, pos);
+        slots.setValue(key, state);
+        return state;
+    }
+
+    public boolean hasFlowDown(int key) {
+        return slots.hasFlag(key);
+    }
+
+    public boolean getFlowDown(int key) {
+        return slots.getFlag(key);
+    }
+
+    public void setFlowDown(int key, boolean canFlowDown) {
+        slots.setFlag(key, canFlowDown);
+    }
+
+    /**
+     * Scratch position for a search depth; deeper than MAX_DEPTH is not supported
+     */
+    public BlockPos.MutableBlockPos position(int depth) {
+        return positions[depth];
+    }
+
+    public static int getMaxDepth() {
+        return MAX_DEPTH;
+    }
+
+    public BlockPos.MutableBlockPos below() {
+        return below;
+    }
+
+    /**
+     * Scratch position for the neighbours of the search origin
+     */
+    public BlockPos.MutableBlockPos firstLevel() {
+        return firstLevel;
+    }
+
+    public Direction[] directions() {
+        return directions;
+    }
+
+    public int[] amounts() {
+        return amounts;
+    }
+}
@@ -0,0 +1,75 @@
+package flowingfluidsfixes;
+
+import java.util.Arrays;
+
+/**
+ * STAMPED CACHE - flat arrays of values and flags validated by a generation stamp
+ *
+ * The Minecraft-free core of SlopeSearchCache. Each key in [0, size) has a value slot
+ * and a flag slot, each valid only while its stamp equals the current generation, so
+ * clearing the whole cache is one increment. Stamps are reset when the generation
+ * wraps around.
+ *
+ * Not thread-safe; SlopeSearchCache keeps one per thread.
+ */
+public final class StampedCache {
+    private final int[] valueStamps;
+    private final Object[] values;
+    private final int[] flagStamps;
+    private final boolean[] flags;
+    private int generation = 0;
+
+    public StampedCache(int size) {
+        this(size, 0);
+    }
+
+    /**
+     * Start at a given generation, so tests can reach the wrap-around
+     */
+    StampedCache(int size, int generation) {
+        this.valueStamps = new int[size];
+        this.values = new Object[size];
+        this.flagStamps = new int[size];
+        this.flags = new boolean[size];
+        this.generation = generation;
+    }
+
+    /**
+     * Invalidate every value and flag
+     */
+    public void nextGeneration() {
+        generation++;
+        if (generation == 0) {
+            // Wrapped around - old stamps could match again
+            Arrays.fill(valueStamps, 0);
+            Arrays.fill(flagStamps, 0);
+            generation = 1;
+        }
+    }
+
+    public boolean hasValue(int key) {
+        return valueStamps[key] == generation;
+    }
+
+    public Object getValue(int key) {
+        return values[key];
+    }
+
+    public void setValue(int key, Object value) {
+        values[key] = value;
+        valueStamps[key] = generation;
+    }
+
+    public boolean hasFlag(int key) {
+        return flagStamps[key] == generation;
+    }
+
+    public boolean getFlag(int key) {
+        return flags[key];
+    }
+
+    public void setFlag(int key, boolean flag) {
+        flags[key] = flag;
+        flagStamps[key] = generation;
+    }
+}
@@ -0,0 +1,33 @@
+package flowingfluidsfixes;
+
+/**
+ * THROTTLE SNAPSHOT - immutable server throttle state for one tick
+ *
+ * Built by the server thread at the end of every tick and published through a
+ * single volatile store in FlowingFluidsFixes. Decisions and statistics read the
+ * snapshot once and take every value from it, so one status line or one decision
+ * never mixes MSPT readings from different moments, and readers on other threads
+ * see a complete state.
+ */
+public final class ThrottleSnapshot {
+    public static final ThrottleSnapshot INITIAL = new ThrottleSnapshot(0L, 1.0, 5.0, 5.0, false, true, false);
+
+    public final long tick;          // server tick the snapshot was taken at
+    public final double admissionRate; // AdmissionController output, share of throttled operations to run
+    public final double mspt;        // EWMA of tick busy time
+    public final double tailMSPT;    // p95 tick time over the rolling window, never below the EWMA
+    public final boolean emergency;
+    public final boolean startup;
+    public final boolean cachingAllowed;
+
+    public ThrottleSnapshot(long tick, double admissionRate, double mspt, double tailMSPT,
+                            boolean emergency, boolean startup, boolean cachingAllowed) {
+        this.tick = tick;
+        this.admissionRate = admissionRate;
+        this.mspt = mspt;
+        this.tailMSPT = tailMSPT;
+        this.emergency = emergency;
+        this.startup = startup;
+        this.cachingAllowed = cachingAllowed;
+    }
+}
@@ -0,0 +1,101 @@
+package flowingfluidsfixes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LOG-LINEAR HISTOGRAM - nanosecond tick durations in the style of HdrHistogram
+ *
+ * Values below 64ns are counted exactly; above that each power of two is split into
+ * 32 linear sub-buckets, so every recorded value is kept within ~3% relative error
+ * from nanoseconds up to ~18 minutes. Buckets are atomic counters, so recording is
+ * lock-free and readers on other threads always see consistent per-bucket counts.
+ */
+public class TickTimeHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;       // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;          // 64, counted exactly
+    private static final int MAX_VALUE_BITS = 40;                           // ~1099s
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_VALUE_BITS - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Record one duration in nanoseconds; negative values count as 0, huge values are clamped
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexFor(Math.max(0, Math.min(nanos, MAX_VALUE))));
+    }
+
+    /**
+     * Add all counts of this histogram into an accumulator array of bucketCount() length
+     */
+    public void addTo(long[] accumulator) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulator[i] += counts.get(i);
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    public static int bucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    /**
+     * Get the value at a percentile (0-100) of an accumulated bucket array, in nanoseconds
+     */
+    public static long valueAtPercentile(long[] buckets, double percentile) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return highestEquivalentValue(buckets.length - 1);
+    }
+
+    /**
+     * Get the largest recorded value of an accumulated bucket array, in nanoseconds
+     */
+    public static long maxValue(long[] buckets) {
+        for (int i = buckets.length - 1; i >= 0; i--) {
+            if (buckets[i] != 0) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    static int indexFor(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS; // >= 1
+        int subBucket = (int) (value >>> shift);                                 // [32, 64)
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,113 @@
+package flowingfluidsfixes;
+
+import java.util.Arrays;
+
+/**
+ * TICK TIME RECORDER - nanosecond tick durations with EWMA and rolling percentiles
+ *
+ * Every tick is recorded at full nanosecond resolution into the current slot of a
+ * ring of histograms. Each slot covers one second of ticks; when a slot fills, the
+ * ring is merged and p50/p95/p99/max are published for the whole rolling window.
+ * The EWMA is updated on every tick so short spikes are visible immediately.
+ *
+ * Written by the server thread only; readers on any thread see published values.
+ */
+public class TickTimeRecorder {
+    // CONFIGURATION
+    private static final int SLOT_TICKS = 20;       // 1 second per slot
+    private static final int WINDOW_SLOTS = 5;      // 5 second rolling window
+    private static final double EWMA_ALPHA = 0.1;   // ~6.6 tick half-life (ln 0.5 / ln 0.9)
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final TickTimeHistogram[] slots = new TickTimeHistogram[WINDOW_SLOTS];
+    private final long[] mergeBuffer = new long[TickTimeHistogram.bucketCount()];
+    private int currentSlot = 0;
+    private int ticksInSlot = 0;
+
+    // PUBLISHED VALUES - nanoseconds
+    private volatile double ewmaNanos = 0.0;
+    private volatile long lastTickNanos = 0;
+    private volatile long p50Nanos = 0;
+    private volatile long p95Nanos = 0;
+    private volatile long p99Nanos = 0;
+    private volatile long maxNanos = 0;
+
+    public TickTimeRecorder() {
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            slots[i] = new TickTimeHistogram();
+        }
+    }
+
+    /**
+     * Record one tick duration in nanoseconds
+     */
+    public void record(long tickNanos) {
+        slots[currentSlot].record(tickNanos);
+        lastTickNanos = tickNanos;
+
+        double previous = ewmaNanos;
+        ewmaNanos = previous == 0.0 ? tickNanos : previous + EWMA_ALPHA * (tickNanos - previous);
+
+        if (++ticksInSlot >= SLOT_TICKS) {
+            publishPercentiles();
+            currentSlot = (currentSlot + 1) % WINDOW_SLOTS;
+            slots[currentSlot].reset();
+            ticksInSlot = 0;
+        }
+    }
+
+    private void publishPercentiles() {
+        Arrays.fill(mergeBuffer, 0);
+        for (TickTimeHistogram slot : slots) {
+            slot.addTo(mergeBuffer);
+        }
+        p50Nanos = TickTimeHistogram.valueAtPercentile(mergeBuffer, 50.0);
+        p95Nanos = TickTimeHistogram.valueAtPercentile(mergeBuffer, 95.0);
+        p99Nanos = TickTimeHistogram.valueAtPercentile(mergeBuffer, 99.0);
+        maxNanos = TickTimeHistogram.maxValue(mergeBuffer);
+    }
+
+    public double getEwmaMillis() {
+        return ewmaNanos / NANOS_PER_MS;
+    }
+
+    public double getLastTickMillis() {
+        return lastTickNanos / NANOS_PER_MS;
+    }
+
+    public double getP50Millis() {
+        return p50Nanos / NANOS_PER_MS;
+    }
+
+    public double getP95Millis() {
+        return p95Nanos / NANOS_PER_MS;
+    }
+
+    public double getP99Millis() {
+        return p99Nanos / NANOS_PER_MS;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos / NANOS_PER_MS;
+    }
+
+    public void reset() {
+        for (TickTimeHistogram slot : slots) {
+            slot.reset();
+        }
+        currentSlot = 0;
+        ticksInSlot = 0;
+        ewmaNanos = 0.0;
+        lastTickNanos = 0;
+        p50Nanos = 0;
+        p95Nanos = 0;
+        p99Nanos = 0;
+        maxNanos = 0;
+    }
+
+    // Simple statistics
+    public String getStats() {
+        return String.format("Tick: ewma %.2fms, p50 %.2fms, p95 %.2fms, p99 %.2fms, max %.2fms",
+                           getEwmaMillis(), getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+    }
+}
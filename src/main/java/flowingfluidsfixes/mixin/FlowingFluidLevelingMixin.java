@@ -0,0 +1,54 @@
+package flowingfluidsfixes.mixin;
+
+import flowingfluidsfixes.LevelingAdmission;
+import flowingfluidsfixes.SleepingSections;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.material.FlowingFluid;
+import net.minecraft.world.level.material.FluidState;
+import org.spongepowered.asm.mixin.Dynamic;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * RANDOM TICK LEVELING - gate Flowing Fluids' random-tick leveling
+ *
+ * Flowing Fluids adds a randomTick override to FlowingFluid, so the target only exists
+ * once its mixin is applied and is matched by its SRG name. The gate sits on its
+ * cardinal shuffle, after its own cheap early returns (mod disabled, leveling off,
+ * busy tick container, fluid not allowed, same fluid above, amount at the drop-off),
+ * so only random ticks that would really level are counted, skipped or charged.
+ * Admitted ticks are reported to SleepingSections when the random tick returns, so
+ * it can tell leveling that moved water from leveling that found nothing to move.
+ */
+@Mixin(value = FlowingFluid.class, priority = 1500)
+public abstract class FlowingFluidLevelingMixin {
+
+    @Dynamic("Added to FlowingFluid by Flowing Fluids' MixinFlowingFluid")
+    @Inject(method = "m_213812_",
+            at = @At(value = "INVOKE", target = "Ltraben/flowing_fluids/FFFluidUtils;getCardinalsShuffle(Lnet/minecraft/util/RandomSource;)Ljava/util/List;"),
+            cancellable = true, remap = false, require = 1)
+    private void flowingfluidsfixes$admitLeveling(Level level, BlockPos pos, FluidState state, RandomSource random, CallbackInfo ci) {
+        if (level instanceof ServerLevel serverLevel) {
+            // Sleeping sections first - they must not spend tokens
+            if (SleepingSections.isAsleep(serverLevel, pos) || !LevelingAdmission.tryAdmit(serverLevel, pos)) {
+                ci.cancel();
+            } else {
+                SleepingSections.startLeveling(pos);
+            }
+        }
+    }
+
+    @Dynamic("Added to FlowingFluid by Flowing Fluids' MixinFlowingFluid")
+    @Inject(method = "m_213812_", at = @At("RETURN"), remap = false, require = 1)
+    private void flowingfluidsfixes$levelingOutcome(Level level, BlockPos pos, FluidState state, RandomSource random, CallbackInfo ci) {
+        if (level instanceof ServerLevel serverLevel) {
+            // Only set for admitted ticks that got past the shuffle
+            SleepingSections.endLeveling(serverLevel);
+        }
+    }
+}
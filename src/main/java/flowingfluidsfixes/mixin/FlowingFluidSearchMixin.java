@@ -0,0 +1,202 @@
+package flowingfluidsfixes.mixin;
+
+import flowingfluidsfixes.FluidStateCache;
+import flowingfluidsfixes.SlopeSearchCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FlowingFluid;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import org.spongepowered.asm.mixin.Dynamic;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import traben.flowing_fluids.FFFluidUtils;
+
+import java.util.List;
+
+/**
+ * SPREAD SEARCH - allocation-free replacement for Flowing Fluids' spread direction search
+ *
+ * getLowestSpreadableLookingFor4BlockDrops is replaced as a whole: the first level
+ * (shuffle, sort by neighbour amount, spreadable filter) works on the scratch arrays
+ * of SlopeSearchCache instead of a stream, an AtomicBoolean and a Pair map, and the
+ * deep search picks the shortest slope in a loop instead of a stream of Pairs and an
+ * Optional. The recursive slope distance search runs over the same flat arrays.
+ * Every block read goes through the tick-wide FluidStateCache.
+ *
+ * The result is the one Flowing Fluids computes: the cardinals are shuffled by
+ * Flowing Fluids itself, so the level random is drawn the same way, ties keep the
+ * shuffled order, and the first shortest slope wins.
+ */
+@Mixin(value = FlowingFluid.class, priority = 1500)
+public abstract class FlowingFluidSearchMixin {
+
+    @Shadow
+    protected abstract int getSlopeFindDistance(LevelReader level);
+
+    @Dynamic("Merged into FlowingFluid by Flowing Fluids' MixinFlowingFluid")
+    @Inject(method = "flowing_fluids$getLowestSpreadableLookingFor4BlockDrops", at = @At("HEAD"), cancellable = true, remap = false, require = 1)
+    private void flowingfluidsfixes$lowestSpreadable(Level level, BlockPos pos, FluidState fluidState, int amount, boolean sameOrEmpty,
+                                                    CallbackInfoReturnable<Direction> cir) {
+        int maxDistance = getSlopeFindDistance(level);
+        if (maxDistance - 1 >= SlopeSearchCache.getMaxDepth()) {
+            return; // Deeper than the scratch positions - leave it to Flowing Fluids
+        }
+        SlopeSearchCache cache = SlopeSearchCache.newSearch();
+        Fluid fluid = fluidState.getType();
+        Direction[] directions = cache.directions();
+        int[] amounts = cache.amounts();
+        BlockPos.MutableBlockPos neighbor = cache.firstLevel();
+
+        // FIRST LEVEL - Flowing Fluids' shuffle, then a stable sort by neighbour amount
+        List<Direction> shuffled = FFFluidUtils.getCardinalsShuffle(level.random);
+        int count = 0;
+        for (int i = 0; i < shuffled.size(); i++) {
+            Direction direction = shuffled.get(i);
+            neighbor.setWithOffset(pos, direction);
+            int neighborAmount = cache.getState(level, SlopeSearchCache.key(pos, neighbor), neighbor).getFluidState().getAmount();
+            int at = count++;
+            while (at > 0 && amounts[at - 1] > neighborAmount) {
+                directions[at] = directions[at - 1];
+                amounts[at] = amounts[at - 1];
+                at--;
+            }
+            directions[at] = direction;
+            amounts[at] = neighborAmount;
+        }
+
+        // Keep the directions the fluid can spread to, noting whether any of them is lower
+        BlockState posState = FluidStateCache.getBlockState(level, pos);
+        boolean anyLower = sameOrEmpty;
+        int spreadable = 0;
+        for (int i = 0; i < count; i++) {
+            Direction direction = directions[i];
+            neighbor.setWithOffset(pos, direction);
+            BlockState neighborState = cache.getState(level, SlopeSearchCache.key(pos, neighbor), neighbor);
+            if (!flowingfluidsfixes$canSpreadTo(fluid, amount, level, pos, posState, direction, neighbor, neighborState,
+                                                neighborState.getFluidState(), sameOrEmpty)) {
+                continue;
+            }
+            if (!anyLower) {
+                anyLower = amounts[i] < amount - 1;
+            }
+            directions[spreadable] = direction;
+            amounts[spreadable] = amounts[i];
+            spreadable++;
+        }
+        if (spreadable == 0) {
+            cir.setReturnValue(null);
+            return;
+        }
+
+        // DEEP SEARCH - shortest slope to a drop, the first one on ties; without a lower
+        // neighbour only slopes within reach count
+        boolean withinReach = sameOrEmpty || !anyLower;
+        Direction best = null;
+        if (maxDistance >= 1) {
+            int bestSlope = Integer.MAX_VALUE;
+            for (int i = 0; i < spreadable; i++) {
+                Direction direction = directions[i];
+                neighbor.setWithOffset(pos, direction);
+                int key = SlopeSearchCache.key(pos, neighbor);
+                int slope;
+                if (amounts[i] < amount - 1 || flowingfluidsfixes$flowsDown(cache, level, key, neighbor, fluid, withinReach)) {
+                    slope = 0;
+                } else {
+                    cache.position(0).set(neighbor);
+                    slope = flowingfluidsfixes$slopeDistance(cache, level, pos, 1, direction.getOpposite(), fluid, amount + 1, 0,
+                                                             withinReach, maxDistance);
+                }
+                if ((!withinReach || slope <= maxDistance) && slope < bestSlope) {
+                    bestSlope = slope;
+                    best = direction;
+                }
+            }
+        }
+        cir.setReturnValue(best == null && !withinReach ? directions[0] : best);
+    }
+
+    /**
+     * Same search as Flowing Fluids' getSlopeDistance, over flat arrays and scratch positions
+     */
+    private static int flowingfluidsfixes$slopeDistance(SlopeSearchCache cache, LevelReader level, BlockPos origin, int distance,
+                                                       Direction from, Fluid fluid, int amount, int depth, boolean sameOrEmpty,
+                                                       int maxDistance) {
+        BlockPos.MutableBlockPos pos = cache.position(depth);
+        BlockPos.MutableBlockPos neighbor = cache.position(depth + 1);
+        BlockState posState = cache.getState(level, SlopeSearchCache.key(origin, pos), pos);
+        int best = 1000;
+        int next = distance + 1;
+
+        for (Direction direction : SlopeSearchCache.HORIZONTALS) {
+            if (direction == from) {
+                continue;
+            }
+            neighbor.setWithOffset(pos, direction);
+            int key = SlopeSearchCache.key(origin, neighbor);
+            BlockState neighborState = cache.getState(level, key, neighbor);
+            FluidState neighborFluid = neighborState.getFluidState();
+
+            if (!flowingfluidsfixes$canSpreadTo(fluid, amount, level, pos, posState, direction, neighbor, neighborState, neighborFluid, sameOrEmpty)) {
+                continue;
+            }
+
+            if (neighborFluid.getAmount() < amount - 2) {
+                return next;
+            }
+            if (flowingfluidsfixes$flowsDown(cache, level, key, neighbor, fluid, sameOrEmpty)) {
+                return next;
+            }
+
+            if (next < maxDistance) {
+                // Recursion reuses the next scratch position as its own pos
+                int slope = flowingfluidsfixes$slopeDistance(cache, level, origin, next, direction.getOpposite(), fluid, amount,
+                                                             depth + 1, sameOrEmpty, maxDistance);
+                if (slope < best) {
+                    best = slope;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Flow-down flag of a search key, computed on first use as Flowing Fluids' flow-down map does
+     */
+    private static boolean flowingfluidsfixes$flowsDown(SlopeSearchCache cache, LevelReader level, int key, BlockPos pos,
+                                                       Fluid fluid, boolean sameOrEmpty) {
+        if (!cache.hasFlowDown(key)) {
+            BlockState state = cache.getState(level, key, pos);
+            cache.setFlowDown(key, flowingfluidsfixes$canFlowDown(level, pos, state, cache.below(), fluid, sameOrEmpty));
+        }
+        return cache.getFlowDown(key);
+    }
+
+    /**
+     * Same check as Flowing Fluids' canSpreadToOptionallySameOrEmpty
+     */
+    private static boolean flowingfluidsfixes$canSpreadTo(Fluid fluid, int amount, LevelReader level, BlockPos pos, BlockState posState,
+                                                         Direction direction, BlockPos target, BlockState targetState,
+                                                         FluidState targetFluid, boolean sameOrEmpty) {
+        if (sameOrEmpty && !targetFluid.isEmpty() && !targetFluid.getType().isSame(fluid)) {
+            return false;
+        }
+        return FFFluidUtils.canFluidFlowFromPosToDirection((FlowingFluid) fluid, amount, level, pos, posState, direction, target, targetState, targetFluid);
+    }
+
+    /**
+     * Same check as Flowing Fluids' flow down lambda, reading through the tick cache
+     */
+    private static boolean flowingfluidsfixes$canFlowDown(LevelReader level, BlockPos pos, BlockState state,
+                                                         BlockPos.MutableBlockPos below, Fluid fluid, boolean sameOrEmpty) {
+        below.setWithOffset(pos, Direction.DOWN);
+        BlockState belowState = FluidStateCache.getBlockState(level, below);
+        return flowingfluidsfixes$canSpreadTo(fluid, 8, level, pos, state, Direction.DOWN, below, belowState, belowState.getFluidState(), sameOrEmpty);
+    }
+}
@@ -0,0 +1,47 @@
+package flowingfluidsfixes.mixin;
+
+import flowingfluidsfixes.FluidNeighborBatch;
+import flowingfluidsfixes.FluidStateCache;
+import flowingfluidsfixes.SleepingSections;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * BLOCK WRITES - keep the tick-scoped state cache coherent, wake sleeping sections,
+ * and route neighbour updates of Flowing Fluids writes through FluidNeighborBatch
+ */
+@Mixin(Level.class)
+public abstract class LevelMixin {
+
+    @ModifyVariable(method = "setBlock(Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/block/state/BlockState;II)Z",
+                    at = @At("HEAD"), argsOnly = true, ordinal = 0)
+    private int flowingfluidsfixes$stripNeighborUpdates(int flags, BlockPos pos) {
+        return FluidNeighborBatch.beforeWrite((Level) (Object) this, pos, flags);
+    }
+
+    // Forge's markAndNotifyBlock runs after the write succeeded and sends neighbour updates before shape updates
+    @Inject(method = "markAndNotifyBlock", at = @At("HEAD"), remap = false, require = 1)
+    private void flowingfluidsfixes$notifyNeighbors(BlockPos pos, LevelChunk chunk, BlockState oldState, BlockState newState,
+                                                    int flags, int recursionLeft, CallbackInfo ci) {
+        FluidNeighborBatch.notifyWrite((Level) (Object) this, pos, oldState, newState);
+    }
+
+    @Inject(method = "setBlock(Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/block/state/BlockState;II)Z", at = @At("RETURN"))
+    private void flowingfluidsfixes$afterBlockWrite(BlockPos pos, BlockState state, int flags, int recursionLeft,
+                                                   CallbackInfoReturnable<Boolean> cir) {
+        if ((Object) this instanceof ServerLevel serverLevel) {
+            FluidStateCache.invalidate(serverLevel, pos);
+            SleepingSections.onBlockWrite(serverLevel, pos);
+        }
+        FluidNeighborBatch.afterWrite((Level) (Object) this);
+    }
+}
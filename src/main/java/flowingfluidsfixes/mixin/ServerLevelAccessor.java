@@ -0,0 +1,17 @@
+package flowingfluidsfixes.mixin;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.material.Fluid;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/**
+ * Runs a fluid tick through ServerLevel's hooks, used by FluidSettlingBacklog
+ */
+@Mixin(ServerLevel.class)
+public interface ServerLevelAccessor {
+
+    @Invoker("tickFluid")
+    void flowingfluidsfixes$tickFluid(BlockPos pos, Fluid fluid);
+}
@@ -0,0 +1,74 @@
+package flowingfluidsfixes.mixin;
+
+import flowingfluidsfixes.ChunkHeatmap;
+import flowingfluidsfixes.FluidNeighborBatch;
+import flowingfluidsfixes.FluidSettlingBacklog;
+import flowingfluidsfixes.FluidTickLod;
+import flowingfluidsfixes.InfiniteSourceCache;
+import flowingfluidsfixes.LevelThrottleState;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * FLUID TICKS - hooks around every scheduled fluid tick of a server level
+ *
+ * tickFluid is vanilla's only caller of FluidState.tick for scheduled ticks, and it
+ * runs before Flowing Fluids' tick replacement, so nothing here depends on how that
+ * handler is merged or whether it cancels. Both hooks are required; a changed
+ * target fails at load instead of silently disabling the fast paths.
+ *
+ * Settled infinite sources are skipped, ticks in settling new chunks are held by
+ * FluidSettlingBacklog and ticks in mid-range and far chunks are rescheduled to
+ * their FluidTickLod slot. Ticks that do run are wrapped in a FluidNeighborBatch scope
+ * and timed for the ChunkHeatmap. A cancelled tick never reaches the RETURN hook; every
+ * tick that does reaches it exactly once, so both open and close a batch frame.
+ */
+@Mixin(ServerLevel.class)
+public abstract class ServerLevelMixin {
+
+    @Inject(method = "tickFluid", at = @At("HEAD"), cancellable = true, require = 1)
+    @SuppressWarnings("unchecked")
+    private void flowingfluidsfixes$beforeFluidTick(BlockPos pos, Fluid fluid, CallbackInfo ci) {
+        ServerLevel level = (ServerLevel) (Object) this;
+
+        FluidState state = level.getFluidState(pos);
+        if (!state.is(fluid)) {
+            FluidNeighborBatch.begin(level, false); // Vanilla drops the tick, nothing to batch or time
+            return;
+        }
+        if (InfiniteSourceCache.isSettledInfiniteSource(level, pos, state)) {
+            ci.cancel();
+            return;
+        }
+        if (FluidSettlingBacklog.hold(level, pos, fluid)) {
+            ci.cancel();
+            return;
+        }
+        // Held ticks being released run now, whatever their tier
+        int delay = FluidSettlingBacklog.isDraining() ? 0 : FluidTickLod.deferTicks(level, pos);
+        if (delay > 0) {
+            // One pending tick per position, so later schedules before the slot merge into it
+            level.scheduleTick(pos, fluid, delay);
+            ci.cancel();
+            return;
+        }
+        FluidNeighborBatch.begin(level, true);
+        ChunkHeatmap.startFluidTick();
+    }
+
+    @Inject(method = "tickFluid", at = @At("RETURN"), require = 1)
+    private void flowingfluidsfixes$afterFluidTick(BlockPos pos, Fluid fluid, CallbackInfo ci) {
+        ServerLevel level = (ServerLevel) (Object) this;
+        FluidNeighborBatch.end(level);
+        // Ticks skipped, held, deferred or dropped above were never started
+        if (ChunkHeatmap.endFluidTick(level, pos)) {
+            LevelThrottleState.get(level).countFluidTick();
+        }
+    }
+}